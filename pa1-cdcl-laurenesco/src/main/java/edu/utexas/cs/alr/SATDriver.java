@@ -9,24 +9,167 @@
 package edu.utexas.cs.alr;
 
 import edu.utexas.cs.alr.ast.Expr;
+import edu.utexas.cs.alr.util.Backbone;
+import edu.utexas.cs.alr.util.CoreExtractor;
+import edu.utexas.cs.alr.util.CubeAndConquer;
 import edu.utexas.cs.alr.util.ExprUtils;
-import edu.utexas.cs.alr.util.SatUtil;
+import edu.utexas.cs.alr.util.Portfolio;
+import edu.utexas.cs.alr.util.ProofChecker;
+import edu.utexas.cs.alr.util.ProofWriter;
+import edu.utexas.cs.alr.util.Solver;
+import edu.utexas.cs.alr.util.SolverOptions;
 
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 
 public class SATDriver
 {
     public static void main(String[] args) throws Exception
     {
+        boolean printStats = false;
+        int threads = 1;
+        int cubeDepth = 0;
+        String proofFile = null;
+        boolean binaryProof = true;
+        boolean checkProof = false;
+        boolean printCore = false;
+        boolean printBackbone = false;
+        SolverOptions options = new SolverOptions();
+        options.preprocess = true;
+        for (String arg : args)
+        {
+            if (arg.equals("-stats"))
+                printStats = true;
+            else if (arg.startsWith("-phase="))
+                options.defaultPhase = Boolean.parseBoolean(arg.substring("-phase=".length()));
+            else if (arg.startsWith("-random-phase="))
+                options.randomPhaseFreq = Double.parseDouble(arg.substring("-random-phase=".length()));
+            else if (arg.startsWith("-restarts="))
+                options.restarts = SolverOptions.Restarts.valueOf(arg.substring("-restarts=".length()).toUpperCase());
+            else if (arg.startsWith("-luby-unit="))
+                options.lubyUnit = Integer.parseInt(arg.substring("-luby-unit=".length()));
+            else if (arg.startsWith("-reuse-trail="))
+                options.reuseTrail = Boolean.parseBoolean(arg.substring("-reuse-trail=".length()));
+            else if (arg.startsWith("-vivify-interval="))
+                options.vivifyInterval = Integer.parseInt(arg.substring("-vivify-interval=".length()));
+            else if (arg.startsWith("-vivify-millis="))
+                options.vivifyMillis = Integer.parseInt(arg.substring("-vivify-millis=".length()));
+            else if (arg.startsWith("-preprocess="))
+                options.preprocess = Boolean.parseBoolean(arg.substring("-preprocess=".length()));
+            else if (arg.startsWith("-seed="))
+                options.seed = Long.parseLong(arg.substring("-seed=".length()));
+            else if (arg.startsWith("-threads="))
+                threads = Integer.parseInt(arg.substring("-threads=".length()));
+            else if (arg.startsWith("-cube-depth="))
+                cubeDepth = Integer.parseInt(arg.substring("-cube-depth=".length()));
+            else if (arg.startsWith("-proof="))
+                proofFile = arg.substring("-proof=".length());
+            else if (arg.startsWith("-proof-format="))
+                binaryProof = !arg.substring("-proof-format=".length()).equals("text");
+            else if (arg.equals("-check-proof"))
+                checkProof = true;
+            else if (arg.equals("-core"))
+                printCore = true;
+            else if (arg.equals("-backbone"))
+                printBackbone = true;
+            else
+                throw new IllegalArgumentException("Unknown option " + arg);
+        }
+        if (proofFile != null && (threads > 1 || cubeDepth > 0))
+            throw new IllegalArgumentException("-proof needs a single solver, without -threads or -cube-depth");
+        if (checkProof && proofFile == null)
+            throw new IllegalArgumentException("-check-proof needs -proof=<file>");
+        if (printCore && (threads > 1 || cubeDepth > 0 || proofFile != null))
+            throw new IllegalArgumentException("-core needs a single solver, without -threads, -cube-depth or -proof");
+        if (printBackbone && (threads > 1 || cubeDepth > 0 || proofFile != null || printCore))
+            throw new IllegalArgumentException("-backbone needs a single solver, without -threads, -cube-depth, -proof or -core");
+
         try
         {
             Expr e = ExprUtils.parseFrom(System.in);
             // Tseitin's Transformation
             Expr cnfExpr = ExprUtils.toTseitin(e);
 			// System.out.println(cnfExpr);
-            System.out.println(SatUtil.checkSAT(cnfExpr) ? "SAT" : "UNSAT");
+            boolean sat;
+            Object stats;
+            if (printCore)
+            {
+                CoreExtractor extractor = new CoreExtractor(e, options);
+                sat = extractor.solve();
+                if (!sat)
+                {
+                    int found = extractor.getCoreIndices().length;
+                    extractor.minimize();
+                    // Positions of the top-level conjuncts, counted from 1
+                    StringBuilder minimal = new StringBuilder();
+                    for (int index : extractor.getCoreIndices())
+                        minimal.append(' ').append(index + 1);
+                    System.err.println("core: " + found + " of " + extractor.getConjunctCount()
+                            + " conjuncts, minimized to " + extractor.getCoreIndices().length + ":" + minimal);
+                }
+                stats = extractor.getStats();
+            }
+            else if (printBackbone)
+            {
+                Backbone backbone = new Backbone(e, options);
+                long[] literals = backbone.compute();
+                sat = literals != null;
+                if (sat)
+                {
+                    StringBuilder found = new StringBuilder();
+                    for (long lit : literals)
+                        found.append(' ').append(lit);
+                    System.err.println("backbone: " + literals.length + " literals in " + backbone.getSolveCalls()
+                            + " solver calls:" + found);
+                }
+                stats = backbone.getStats();
+            }
+            else if (cubeDepth > 0)
+            {
+                CubeAndConquer cubeAndConquer = new CubeAndConquer(threads, cubeDepth, options);
+                sat = cubeAndConquer.solve(cnfExpr);
+                stats = "cubes: " + cubeAndConquer.getCubeCount();
+            }
+            else if (threads > 1)
+            {
+                Portfolio portfolio = new Portfolio(Portfolio.defaultConfigs(threads, options));
+                sat = portfolio.solve(cnfExpr);
+                stats = portfolio.getStats();
+            }
+            else if (proofFile != null)
+            {
+                try (ProofWriter proof = new ProofWriter(Paths.get(proofFile), binaryProof))
+                {
+                    Solver solver = new Solver(options);
+                    solver.setProof(proof);
+                    sat = solver.solve(cnfExpr);
+                    stats = solver.getStats();
+                }
+            }
+            else
+            {
+                Solver solver = new Solver(options);
+                sat = solver.solve(cnfExpr);
+                stats = solver.getStats();
+            }
+            System.out.println(sat ? "SAT" : "UNSAT");
+            if (checkProof && !sat)
+            {
+                ProofChecker checker = new ProofChecker(cnfExpr);
+                if (checker.check(Paths.get(proofFile)))
+                    System.err.println("proof verified: " + checker.getCoreLemmaCount() + " of "
+                            + checker.getLemmaCount() + " lemmas checked");
+                else
+                {
+                    System.err.println("proof rejected: " + checker.getFailure());
+                    System.exit(1);
+                }
+            }
+            // Stats go to stderr so stdout stays a single answer
+            if (printStats)
+                System.err.println(stats);
         }
         catch (IOException ex)
         {
@@ -0,0 +1,228 @@
+//
+// Program Name:	AssignmentManager.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: Trail and variable assignments of the SAT solver
+//
+
+package edu.utexas.cs.alr.util;
+
+import java.util.*;
+
+/////////////////////////
+// ASSIGNMENT MANAGER
+/////////////////////////
+
+// Owns the trail, which doubles as the implication graph: the literals made
+// true in assignment order, with the level and incoming clause of every variable
+class AssignmentManager {
+	static final byte UNASSIGNED = 0, TRUE = 1, FALSE = -1;
+
+	private byte[] values;				// Value of each variable
+	private int[] levels;				// Decision level each variable was assigned at
+	private int[] reasons;				// Cref of the clause that implied each variable (NONE if decision or binary)
+	private int[] binaryReasons;		// Other literal of the binary clause that implied each variable (-1 if none)
+	int[] trail;						// Literals made true, in assignment order
+	int trailSize = 0;
+	private int[] trailLim;				// Trail position where each decision level starts
+	private int[] levelStamps;			// Scratch marks for counting distinct levels
+	private int stamp = 0;
+	private int decisionLevel = 0;
+	int qhead = 0;		// Next trail position for BCP to propagate through longer clauses
+	int binaryQhead = 0;	// Next trail position for BCP to propagate through binary clauses
+	final VarOrder order;	// Unassigned variables by activity, for decisions
+	private boolean[] savedPhases;		// Last value of each variable, reused by decisions
+	private final boolean defaultPhase;
+	private int inactive = 0;			// Variables that are never assigned, such as eliminated ones
+
+	public AssignmentManager(int numVars, boolean defaultPhase) {
+		this.defaultPhase = defaultPhase;
+		order = new VarOrder(0);
+		savedPhases = new boolean[0];
+		values = new byte[0];
+		levels = new int[0];
+		reasons = new int[0];
+		binaryReasons = new int[0];
+		trail = new int[0];
+		trailLim = new int[1];
+		levelStamps = new int[1];
+		growTo(numVars);
+	}
+
+	// Make room for variables added to the formula, they start out unassigned
+	public void growTo(int numVars) {
+		int old = values.length;
+		if (numVars <= old) {
+			return;
+		}
+		savedPhases = Arrays.copyOf(savedPhases, numVars);
+		Arrays.fill(savedPhases, old, numVars, defaultPhase);
+		values = Arrays.copyOf(values, numVars);
+		levels = Arrays.copyOf(levels, numVars);
+		reasons = Arrays.copyOf(reasons, numVars);
+		Arrays.fill(reasons, old, numVars, ClauseArena.NONE);
+		binaryReasons = Arrays.copyOf(binaryReasons, numVars);
+		trail = Arrays.copyOf(trail, numVars);
+		order.growTo(numVars);
+	}
+
+	// Make the literal true at the current decision level
+	public void assign(int lit, int impliedBy) {
+		int var = Literal.var(lit);
+		values[var] = (lit & 1) == 0 ? TRUE : FALSE;
+		levels[var] = decisionLevel;
+		reasons[var] = impliedBy;
+		binaryReasons[var] = -1;
+		trail[trailSize++] = lit;
+	}
+
+	// Make the literal true, implied by the binary clause (lit or other)
+	public void assignBinary(int lit, int other) {
+		assign(lit, ClauseArena.NONE);
+		binaryReasons[Literal.var(lit)] = other;
+	}
+
+	// Open a new decision level, the next assignment is its decision. Levels can
+	// outnumber variables, an assumption that already holds gets an empty one
+	public void newDecisionLevel() {
+		if (decisionLevel + 1 == trailLim.length) {
+			trailLim = Arrays.copyOf(trailLim, trailLim.length * 2);
+			levelStamps = Arrays.copyOf(levelStamps, trailLim.length);
+		}
+		trailLim[++decisionLevel] = trailSize;
+	}
+
+	public int decisionLevel() {
+		return decisionLevel;
+	}
+
+	// Trail position of the first assignment at the given level
+	public int levelStart(int level) {
+		return level == 0 ? 0 : trailLim[level];
+	}
+
+	public int numVars() {
+		return values.length;
+	}
+
+	// Check if variable is assigned
+	public boolean isAssigned(int var) {
+		return values[var] != UNASSIGNED;
+	}
+
+	// Get the truth value of a literal (TRUE, FALSE or UNASSIGNED)
+	public byte litValue(int lit) {
+		byte value = values[lit >> 1];
+		return (lit & 1) == 0 ? value : (byte) -value;
+	}
+
+	public int getLevel(int var) {
+		return levels[var];
+	}
+
+	public int getReason(int var) {
+		return reasons[var];
+	}
+
+	public int getBinaryReason(int var) {
+		return binaryReasons[var];
+	}
+
+	public boolean isDecision(int var) {
+		return reasons[var] == ClauseArena.NONE && binaryReasons[var] == -1;
+	}
+
+	public boolean getSavedPhase(int var) {
+		return savedPhases[var];
+	}
+
+	// Literal block distance: the number of distinct decision levels among the literals
+	public int computeLBD(IntVec lits) {
+		stamp++;
+		int lbd = 0;
+		for (int k = 0; k < lits.size(); k++) {
+			if (stampLevel(Literal.var(lits.get(k)))) {
+				lbd++;
+			}
+		}
+		return lbd;
+	}
+
+	public int computeLBD(ClauseArena arena, int cref) {
+		stamp++;
+		int lbd = 0;
+		for (int k = 0; k < arena.size(cref); k++) {
+			if (stampLevel(Literal.var(arena.lit(cref, k)))) {
+				lbd++;
+			}
+		}
+		return lbd;
+	}
+
+	// Mark the level of the variable, returns false if it was already marked
+	private boolean stampLevel(int var) {
+		int level = levels[var];
+		if (levelStamps[level] == stamp) {
+			return false;
+		}
+		levelStamps[level] = stamp;
+		return true;
+	}
+
+	// Check if all variables are assigned. Every assigned variable has exactly one
+	// trail entry, so the trail size is the count of assigned variables.
+	public boolean allAssigned() {
+		return trailSize + inactive == values.length;
+	}
+
+	// Take an unassigned variable out of the search for good
+	public void deactivate(int var) {
+		inactive++;
+		order.remove(var);
+	}
+
+	// Backtrack to given level by truncating the trail above it
+	public void backtrack(int targetDecisionLevel) {
+		if (targetDecisionLevel >= decisionLevel) {
+			return;
+		}
+		int start = trailLim[targetDecisionLevel + 1];
+		for (int i = trailSize - 1; i >= start; i--) {
+			int var = Literal.var(trail[i]);
+			savedPhases[var] = values[var] == TRUE;
+			values[var] = UNASSIGNED;
+			reasons[var] = ClauseArena.NONE;
+			order.insert(var);
+		}
+		trailSize = start;
+		decisionLevel = targetDecisionLevel;
+		qhead = Math.min(qhead, trailSize);
+		binaryQhead = Math.min(binaryQhead, trailSize);
+	}
+
+	// Undo the level-0 assignments from trail position start on, for when their
+	// reasons go away. Propagation restarts from the beginning of the trail
+	public void unassignFrom(int start) {
+		for (int i = trailSize - 1; i >= start; i--) {
+			int var = Literal.var(trail[i]);
+			values[var] = UNASSIGNED;
+			reasons[var] = ClauseArena.NONE;
+			order.insert(var);
+		}
+		trailSize = start;
+		qhead = 0;
+		binaryQhead = 0;
+	}
+
+	// Follow the clauses moved by a compaction of the arena. Only assigned
+	// variables have a reason, and reasons are never deleted.
+	public void relocateReasons(int[] old) {
+		for (int i = 0; i < trailSize; i++) {
+			int var = Literal.var(trail[i]);
+			if (reasons[var] != ClauseArena.NONE) {
+				reasons[var] = ClauseArena.forward(old, reasons[var]);
+			}
+		}
+	}
+
+}
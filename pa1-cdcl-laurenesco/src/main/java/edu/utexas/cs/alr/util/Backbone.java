@@ -0,0 +1,194 @@
+//
+// Program Name:	Backbone.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: Backbone of a satisfiable formula over its input variables
+//
+
+package edu.utexas.cs.alr.util;
+
+import edu.utexas.cs.alr.ast.Expr;
+
+import java.util.*;
+
+////////////////////
+// BACKBONE CLASS
+////////////////////
+
+// Computes the backbone of a formula: the literals over its input variables
+// that are true in every model.
+//
+// The candidates start as the literals of a first model. Each later query asks
+// for a model that falsifies at least one of a chunk of candidates, with the
+// clause (-c1 | ... | -ck) guarded by a fresh selector that is assumed. A model
+// drops every candidate it falsifies, usually more than the chunk. No model
+// means the whole chunk is backbone, and its literals are added as units so
+// later queries propagate them. After every call, candidates the solver has
+// fixed at level 0 are backbone without a query of their own.
+//
+// The chunk doubles after an UNSAT query and halves after a SAT one, so formulas
+// with large backbones take few queries and the rest stay cheap. All queries run
+// on one incremental Solver, through its public interface.
+public class Backbone {
+
+	private static final int MAX_CHUNK = 64;
+
+	private final Solver solver;
+	private final long[] inputs;				// VarExpr id of each input
+	private final Map<Long, Integer> inputIndex = new HashMap<>();
+	private final long[] candidateLits;			// The input's literal in the first model
+	private final boolean[] modelValues;		// The inputs' values in the last model
+	private long[] backboneLits;				// Result of the first compute()
+	private long nextSelector;					// VarExpr id for the next query's selector
+	private int chunk = 1;
+	private int solveCalls = 0;
+	private int freeLiterals = 0;
+
+	public Backbone(Expr expr) {
+		this(expr, new SolverOptions());
+	}
+
+	public Backbone(Expr expr, SolverOptions options) {
+		Expr cnf = ExprUtils.toTseitin(expr);
+		inputs = ExprUtils.getVarIds(expr);
+		nextSelector = ExprUtils.getMaxVarID(cnf) + 1;
+		solver = new Solver(options);
+		solver.add(cnf);
+		solver.freeze(inputs);
+		for (int i = 0; i < inputs.length; i++) {
+			inputIndex.put(inputs[i], i);
+		}
+		candidateLits = new long[inputs.length];
+		modelValues = new boolean[inputs.length];
+	}
+
+	// The backbone as signed VarExpr ids, ascending by variable, or null if the
+	// formula is UNSAT
+	public long[] compute() {
+		if (solveCalls > 0) {
+			// Queries add units and retire selectors, the answer does not change
+			return backboneLits == null ? null : backboneLits.clone();
+		}
+		solveCalls++;
+		if (!solver.solve()) {
+			return null;
+		}
+
+		// The candidates are input indices, the first count of candidates
+		boolean[] backbone = new boolean[inputs.length];
+		int[] candidates = new int[inputs.length];
+		readModel();
+		for (int i = 0; i < inputs.length; i++) {
+			candidateLits[i] = modelValues[i] ? inputs[i] : -inputs[i];
+			candidates[i] = i;
+		}
+		int count = takeFixed(candidates, inputs.length, backbone);
+
+		while (count > 0) {
+			int size = Math.min(chunk, count);
+			long[] query = new long[size];
+			for (int k = 0; k < size; k++) {
+				query[k] = -candidateLits[candidates[k]];
+			}
+
+			boolean sat;
+			solveCalls++;
+			if (size == 1) {
+				sat = solver.solve(query);
+			} else {
+				long selector = nextSelector++;
+				long[] clause = Arrays.copyOf(query, size + 1);
+				clause[size] = -selector;
+				solver.addClause(clause);
+				solver.freeze(selector);
+				sat = solver.solve(new long[] { selector });
+				// The query clause is never needed again
+				solver.addClause(-selector);
+			}
+
+			if (sat) {
+				readModel();
+				count = filter(candidates, count);
+				chunk = Math.max(1, chunk / 2);
+			} else {
+				for (int k = 0; k < size; k++) {
+					int i = candidates[k];
+					backbone[i] = true;
+					solver.addClause(candidateLits[i]);
+				}
+				System.arraycopy(candidates, size, candidates, 0, count - size);
+				count -= size;
+				chunk = Math.min(MAX_CHUNK, chunk * 2);
+			}
+			count = takeFixed(candidates, count, backbone);
+		}
+
+		int found = 0;
+		for (boolean b : backbone) {
+			if (b) {
+				found++;
+			}
+		}
+		backboneLits = new long[found];
+		found = 0;
+		for (int i = 0; i < inputs.length; i++) {
+			if (backbone[i]) {
+				backboneLits[found++] = candidateLits[i];
+			}
+		}
+		return backboneLits.clone();
+	}
+
+	// Calls to the incremental solver so far
+	public int getSolveCalls() {
+		return solveCalls;
+	}
+
+	// Backbone literals found fixed at level 0, without a query of their own
+	public int getFreeLiterals() {
+		return freeLiterals;
+	}
+
+	public SolverStats getStats() {
+		return solver.getStats();
+	}
+
+	// Copy the input values of the last model into modelValues
+	private void readModel() {
+		for (long lit : solver.getModel()) {
+			Integer i = inputIndex.get(Math.abs(lit));
+			if (i != null) {
+				modelValues[i] = lit > 0;
+			}
+		}
+	}
+
+	// Keep the first count candidates that the last model agrees with. Returns
+	// how many are left
+	private int filter(int[] candidates, int count) {
+		int kept = 0;
+		for (int k = 0; k < count; k++) {
+			int i = candidates[k];
+			if (modelValues[i] == (candidateLits[i] > 0)) {
+				candidates[kept++] = i;
+			}
+		}
+		return kept;
+	}
+
+	// Move the candidates the solver has fixed at level 0 to the backbone.
+	// Returns how many candidates are left
+	private int takeFixed(int[] candidates, int count, boolean[] backbone) {
+		int kept = 0;
+		for (int k = 0; k < count; k++) {
+			int i = candidates[k];
+			if (solver.isFixed(candidateLits[i])) {
+				backbone[i] = true;
+				freeLiterals++;
+			} else {
+				candidates[kept++] = i;
+			}
+		}
+		return kept;
+	}
+}
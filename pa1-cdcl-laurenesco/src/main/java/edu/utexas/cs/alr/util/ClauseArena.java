@@ -0,0 +1,150 @@
+//
+// Program Name:	ClauseArena.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: Flat storage for the clauses of the SAT solver
+//
+
+package edu.utexas.cs.alr.util;
+
+import java.util.Arrays;
+
+///////////////////////
+// CLAUSE ARENA CLASS
+///////////////////////
+
+// Every clause lives in one growable int array as a header followed by its
+// literals, and is referred to by the offset of its header (its cref):
+//
+//   cref + 0   size (number of literals)
+//   cref + 1   flags: bit 0 learned, bit 1 deleted, bits 2-3 tier, bit 4 vivified, bits 5+ LBD
+//   cref + 2   conflict count when it last took part in conflict analysis, as a
+//   cref + 3   long split into its low and high int
+//   cref + 4   activity, as float bits
+//   cref + 5   first literal, ...
+//
+// Deleting a clause only marks it, compact() moves the live clauses together
+// and reports where each one went.
+class ClauseArena {
+	static final int HEADER = 5;
+	static final int NONE = -1;			// Null cref
+
+	// Tiers of learned clauses, by LBD
+	static final int CORE = 0, TIER2 = 1, LOCAL = 2;
+	static final int CORE_LBD = 2, TIER2_LBD = 6;
+
+	private static final int SIZE = 0, FLAGS = 1, LAST_USED = 2, LAST_USED_HIGH = 3, ACTIVITY = 4;
+	private static final int LEARNED = 1, DELETED = 2, VIVIFIED = 16;
+	private static final int TIER_SHIFT = 2, LBD_SHIFT = 5;
+
+	int[] data = new int[1 << 12];		// Read directly by BCP
+	private int top = 0;				// End of the used part of data
+	private int wasted = 0;				// Ints taken by deleted clauses
+
+	// Copy the literals into a new clause, returns its cref
+	public int alloc(IntVec lits, boolean learned) {
+		int size = lits.size();
+		ensureCapacity(top + HEADER + size);
+		int cref = top;
+		data[cref + SIZE] = size;
+		data[cref + FLAGS] = learned ? LEARNED : 0;
+		data[cref + LAST_USED] = 0;
+		data[cref + LAST_USED_HIGH] = 0;
+		data[cref + ACTIVITY] = 0;
+		for (int k = 0; k < size; k++) {
+			data[cref + HEADER + k] = lits.get(k);
+		}
+		top += HEADER + size;
+		return cref;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > data.length) {
+			data = Arrays.copyOf(data, Math.max(capacity, data.length * 2));
+		}
+	}
+
+	public int size(int cref) { return data[cref + SIZE]; }
+
+	public int lit(int cref, int k) { return data[cref + HEADER + k]; }
+
+	public void swap(int cref, int i, int j) {
+		int tmp = data[cref + HEADER + i];
+		data[cref + HEADER + i] = data[cref + HEADER + j];
+		data[cref + HEADER + j] = tmp;
+	}
+
+	public boolean isLearned(int cref) { return (data[cref + FLAGS] & LEARNED) != 0; }
+
+	public boolean isDeleted(int cref) { return (data[cref + FLAGS] & DELETED) != 0; }
+
+	public void delete(int cref) {
+		data[cref + FLAGS] |= DELETED;
+		wasted += HEADER + size(cref);
+	}
+
+	public boolean isVivified(int cref) { return (data[cref + FLAGS] & VIVIFIED) != 0; }
+
+	public void setVivified(int cref) { data[cref + FLAGS] |= VIVIFIED; }
+
+	public int tier(int cref) { return (data[cref + FLAGS] >>> TIER_SHIFT) & 3; }
+
+	public void setTier(int cref, int tier) {
+		data[cref + FLAGS] = (data[cref + FLAGS] & ~(3 << TIER_SHIFT)) | (tier << TIER_SHIFT);
+	}
+
+	public int lbd(int cref) { return data[cref + FLAGS] >>> LBD_SHIFT; }
+
+	public void setLbd(int cref, int lbd) {
+		data[cref + FLAGS] = (data[cref + FLAGS] & ((1 << LBD_SHIFT) - 1)) | (lbd << LBD_SHIFT);
+	}
+
+	public long lastUsed(int cref) {
+		return ((long) data[cref + LAST_USED_HIGH] << 32) | (data[cref + LAST_USED] & 0xFFFFFFFFL);
+	}
+
+	public void setLastUsed(int cref, long conflicts) {
+		data[cref + LAST_USED] = (int) conflicts;
+		data[cref + LAST_USED_HIGH] = (int) (conflicts >>> 32);
+	}
+
+	public float activity(int cref) { return Float.intBitsToFloat(data[cref + ACTIVITY]); }
+
+	public void setActivity(int cref, float activity) { data[cref + ACTIVITY] = Float.floatToRawIntBits(activity); }
+
+	static int tierOf(int lbd) {
+		return lbd <= CORE_LBD ? CORE : lbd <= TIER2_LBD ? TIER2 : LOCAL;
+	}
+
+	// Worth compacting once a fifth of the arena is deleted clauses
+	public boolean needsCompaction() {
+		return wasted > top / 5;
+	}
+
+	// Slide the live clauses to the front of the arena. The new cref of every moved
+	// clause is left in its old LAST_USED slot, read it back with forward() before
+	// anything else is allocated.
+	public int[] compact() {
+		int[] old = data;
+		int[] fresh = new int[Math.max(1 << 12, top - wasted)];
+		int newTop = 0;
+		for (int cref = 0; cref < top; cref += HEADER + old[cref + SIZE]) {
+			if ((old[cref + FLAGS] & DELETED) != 0) {
+				continue;
+			}
+			int length = HEADER + old[cref + SIZE];
+			System.arraycopy(old, cref, fresh, newTop, length);
+			old[cref + LAST_USED] = newTop;
+			newTop += length;
+		}
+		data = fresh;
+		top = newTop;
+		wasted = 0;
+		return old;
+	}
+
+	// Where a clause moved during the compaction that returned old
+	static int forward(int[] old, int cref) {
+		return old[cref + LAST_USED];
+	}
+}
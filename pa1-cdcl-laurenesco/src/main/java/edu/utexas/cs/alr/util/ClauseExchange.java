@@ -0,0 +1,76 @@
+//
+// Program Name:	ClauseExchange.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: Learned clauses shared between portfolio workers
+//
+
+package edu.utexas.cs.alr.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+///////////////////////////
+// CLAUSE EXCHANGE CLASS
+///////////////////////////
+
+// Lock-free ring buffer of learned clauses. A worker publishes by claiming the
+// next sequence number and storing the clause in its slot; every reader keeps
+// its own cursor. Readers that fall more than a buffer behind lose the oldest
+// clauses, which only costs a little sharing. Clauses are dense literal codes,
+// so all workers must have loaded the same clauses in the same order.
+class ClauseExchange {
+
+	// One published clause, immutable once stored
+	static final class Shared {
+		final long seq;			// Sequence number it was published under
+		final int source;		// Worker that learned it
+		final int lbd;
+		final int[] lits;
+
+		Shared(long seq, int source, int lbd, int[] lits) {
+			this.seq = seq;
+			this.source = source;
+			this.lbd = lbd;
+			this.lits = lits;
+		}
+	}
+
+	private final AtomicReferenceArray<Shared> slots;
+	private final AtomicLong head = new AtomicLong();		// Next sequence number to hand out
+
+	public ClauseExchange(int capacity) {
+		slots = new AtomicReferenceArray<>(capacity);
+	}
+
+	public void publish(int source, int lbd, IntVec lits) {
+		int[] copy = new int[lits.size()];
+		for (int k = 0; k < copy.length; k++) {
+			copy[k] = lits.get(k);
+		}
+		long seq = head.getAndIncrement();
+		slots.set((int) (seq % slots.length()), new Shared(seq, source, lbd, copy));
+	}
+
+	// Next clause at or after the reader's cursor, or null if there is none yet.
+	// cursor[0] is advanced past the returned clause.
+	public Shared poll(long[] cursor) {
+		long end = head.get();
+		while (cursor[0] < end) {
+			long seq = cursor[0];
+			Shared shared = slots.get((int) (seq % slots.length()));
+			if (shared == null || shared.seq < seq) {
+				// Claimed but not stored yet, look again next time
+				return null;
+			}
+			if (shared.seq > seq) {
+				// Overwritten, skip to the oldest clause still in the buffer
+				cursor[0] = Math.max(seq + 1, end - slots.length());
+				continue;
+			}
+			cursor[0]++;
+			return shared;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,22 @@
+//
+// Program Name:	ConflictData.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: Result of conflict analysis
+//
+
+package edu.utexas.cs.alr.util;
+
+/////////////////////////
+// CONFLICT DATA CLASS
+/////////////////////////
+
+class ConflictData {
+	int backjumpLevel;
+	int lbd;				// Distinct decision levels in the learned clause
+
+	ConflictData(int backjumpLevel, int lbd) {
+		this.backjumpLevel = backjumpLevel;
+		this.lbd = lbd;
+	}
+}
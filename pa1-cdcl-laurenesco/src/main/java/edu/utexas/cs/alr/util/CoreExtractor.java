@@ -0,0 +1,165 @@
+//
+// Program Name:	CoreExtractor.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: UNSAT cores over the top-level conjuncts of a formula
+//
+
+package edu.utexas.cs.alr.util;
+
+import edu.utexas.cs.alr.ast.Expr;
+
+import java.util.*;
+
+//////////////////////////
+// CORE EXTRACTOR CLASS
+//////////////////////////
+
+// Finds which top-level conjuncts of an unsatisfiable formula are to blame.
+//
+// Each conjunct is Tseitin-encoded on its own (ExprUtils.toTseitinGroups) and
+// its clauses are guarded by a fresh selector variable, so the conjunct is only
+// in force while its selector is assumed. Solving under all selectors gives the
+// answer, and the failed assumptions of an UNSAT answer give a core: a subset of
+// the conjuncts that is UNSAT by itself.
+//
+// minimize() shrinks the core by deletion on the same incremental Solver, so
+// learned clauses carry over between the calls. A conjunct whose removal keeps
+// the rest UNSAT is dropped for good, and the core is cut down to the failed
+// assumptions of that call. One that makes the rest SAT is needed.
+public class CoreExtractor {
+
+	private final List<Expr> conjuncts;
+	private final long[] selectors;				// Selector VarExpr id of each conjunct
+	private final Map<Long, Integer> groupOf = new HashMap<>();
+	private final Solver solver;
+	private final boolean[] dropped;			// Conjuncts left out of every later call
+	private List<Integer> core = null;
+	private int solveCalls = 0;
+
+	public CoreExtractor(Expr expr) {
+		this(expr, new SolverOptions());
+	}
+
+	public CoreExtractor(Expr expr, SolverOptions options) {
+		conjuncts = ExprUtils.conjuncts(expr);
+		List<Expr> groups = ExprUtils.toTseitinGroups(expr);
+		long nextId = 0;
+		for (Expr group : groups) {
+			nextId = Math.max(nextId, ExprUtils.getMaxVarID(group));
+		}
+
+		solver = new Solver(options);
+		selectors = new long[groups.size()];
+		dropped = new boolean[groups.size()];
+		for (int g = 0; g < groups.size(); g++) {
+			selectors[g] = ++nextId;
+			groupOf.put(selectors[g], g);
+			solver.add(groups.get(g), selectors[g]);
+		}
+	}
+
+	// Decide satisfiability of the whole formula. Returns true if SAT, otherwise
+	// getCore() has the conjuncts that the refutation used
+	public boolean solve() {
+		List<Integer> all = new ArrayList<>();
+		for (int g = 0; g < conjuncts.size(); g++) {
+			if (!dropped[g]) {
+				all.add(g);
+			}
+		}
+		if (solveUnder(all)) {
+			core = null;
+			return true;
+		}
+		return false;
+	}
+
+	// Shrink the core of the last UNSAT solve until every conjunct in it is
+	// needed, and return it
+	public List<Expr> minimize() {
+		if (core == null) {
+			throw new IllegalStateException("minimize() needs an UNSAT answer from solve()");
+		}
+		Set<Integer> needed = new HashSet<>();
+		while (true) {
+			Integer candidate = null;
+			for (int g : core) {
+				if (!needed.contains(g)) {
+					candidate = g;
+					break;
+				}
+			}
+			if (candidate == null) {
+				return getCore();
+			}
+
+			List<Integer> rest = new ArrayList<>(core);
+			rest.remove(candidate);
+			if (solveUnder(rest)) {
+				needed.add(candidate);
+			} else {
+				// Not needed, and never assumed again
+				dropped[candidate] = true;
+				solver.addClause(-selectors[candidate]);
+			}
+		}
+	}
+
+	// Conjuncts of the last core, in the order of the formula. Null if the
+	// last solve was SAT
+	public List<Expr> getCore() {
+		if (core == null) {
+			return null;
+		}
+		List<Expr> exprs = new ArrayList<>();
+		for (int g : getCoreIndices()) {
+			exprs.add(conjuncts.get(g));
+		}
+		return exprs;
+	}
+
+	// Positions of the core conjuncts among the top-level conjuncts, ascending
+	public int[] getCoreIndices() {
+		if (core == null) {
+			return null;
+		}
+		int[] indices = new int[core.size()];
+		for (int k = 0; k < indices.length; k++) {
+			indices[k] = core.get(k);
+		}
+		Arrays.sort(indices);
+		return indices;
+	}
+
+	public int getConjunctCount() {
+		return conjuncts.size();
+	}
+
+	// Calls to the incremental solver so far
+	public int getSolveCalls() {
+		return solveCalls;
+	}
+
+	public SolverStats getStats() {
+		return solver.getStats();
+	}
+
+	// Solve with the selectors of the given conjuncts assumed. If UNSAT, the
+	// core becomes the conjuncts of the failed assumptions
+	private boolean solveUnder(List<Integer> groups) {
+		long[] assumed = new long[groups.size()];
+		for (int k = 0; k < assumed.length; k++) {
+			assumed[k] = selectors[groups.get(k)];
+		}
+		solveCalls++;
+		if (solver.solve(assumed)) {
+			return true;
+		}
+		core = new ArrayList<>();
+		for (long lit : solver.getFailedAssumptions()) {
+			core.add(groupOf.get(lit));
+		}
+		return false;
+	}
+}
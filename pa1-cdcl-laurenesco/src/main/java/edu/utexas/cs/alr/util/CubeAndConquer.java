@@ -0,0 +1,258 @@
+//
+// Program Name:	CubeAndConquer.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: Cube-and-conquer solving on a fork-join pool
+//
+
+package edu.utexas.cs.alr.util;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+////////////////////////////
+// CUBE AND CONQUER CLASS
+////////////////////////////
+
+// Splits the formula into cubes, partial assignments that together cover every
+// assignment, with a lookahead cuber, then solves the cubes in parallel. The
+// formula is SAT iff some cube is. Each pool thread keeps one incremental Solver
+// and solves its cubes as assumptions, so what it learns on one cube helps the
+// next. Once a cube is SAT the remaining ones are cancelled.
+public class CubeAndConquer {
+
+	private static final int CANDIDATES = 32;		// Variables probed at each node of the cuber
+
+	private final int threads;
+	private final int depth;						// Decisions per cube, at most
+	private final SolverOptions options;
+	private long[] model;
+	private int cubeCount = 0;
+
+	public CubeAndConquer(int threads, int depth) {
+		this(threads, depth, new SolverOptions());
+	}
+
+	public CubeAndConquer(int threads, int depth, SolverOptions options) {
+		this.threads = threads;
+		this.depth = depth;
+		this.options = options;
+	}
+
+	// Decide satisfiability of a CNF formula (an Expr or its text)
+	public boolean solve(Object f) {
+		model = null;
+		Solver cuber = new Solver(options);
+		cuber.add(f);
+		List<long[]> cubes = new ArrayList<>();
+		if (cuber.propagateRoot()) {
+			new Cuber(cuber).split(new ArrayDeque<>(), cubes);
+		}
+		cubeCount = cubes.size();
+		if (cubes.isEmpty()) {
+			// Every branch failed during lookahead
+			return false;
+		}
+
+		Conquest conquest = new Conquest(f, cubes);
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			pool.invoke(conquest.task(0, cubes.size()));
+		} finally {
+			pool.shutdownNow();
+		}
+		model = conquest.model.get();
+		return model != null;
+	}
+
+	// Satisfying assignment of the last solve as signed VarExpr ids, or null if it was UNSAT
+	public long[] getModel() {
+		return model;
+	}
+
+	// Number of cubes the last solve split the formula into
+	public int getCubeCount() {
+		return cubeCount;
+	}
+
+	///////////////////////
+	// CUBER
+	///////////////////////
+
+	// Lookahead splitting. At each node the most constrained literals are probed
+	// both ways. A literal that fails in one direction is fixed the other way, and
+	// the split is on the variable whose two branches propagate the most
+	// (largest product of implied counts), so both subproblems shrink.
+	private class Cuber {
+		private final Solver solver;
+		private final Integer[] byOccurrence;		// Variables, most frequent first
+
+		Cuber(Solver solver) {
+			this.solver = solver;
+			int[] occurrences = solver.occurrences();
+			byOccurrence = new Integer[solver.numVars()];
+			for (int var = 0; var < byOccurrence.length; var++) {
+				byOccurrence[var] = var;
+			}
+			Arrays.sort(byOccurrence, (a, b) -> Integer.compare(
+					occurrences[Literal.code(b, false)] + occurrences[Literal.code(b, true)],
+					occurrences[Literal.code(a, false)] + occurrences[Literal.code(a, true)]));
+		}
+
+		// Emit the cubes under the decisions in cube, which are all on the solver's trail
+		void split(Deque<Integer> cube, List<long[]> cubes) {
+			int pushed = 0;			// Literals fixed at this node, undone on return
+			int branch = -1;
+			while (cube.size() < depth && branch == -1) {
+				long bestScore = -1;
+				int fixed = -1;
+				int probed = 0;
+				for (int k = 0; k < byOccurrence.length && probed < CANDIDATES; k++) {
+					int var = byOccurrence[k];
+					int pos = Literal.code(var, false);
+					if (solver.isEliminated(var) || solver.litValue(pos) != AssignmentManager.UNASSIGNED) {
+						continue;
+					}
+					probed++;
+					int posImplied = solver.probe(pos);
+					int negImplied = solver.probe(Literal.negate(pos));
+					if (posImplied < 0 || negImplied < 0) {
+						fixed = posImplied < 0 ? Literal.negate(pos) : pos;
+						if (posImplied < 0 && negImplied < 0) {
+							fixed = -2;
+						}
+						break;
+					}
+					long score = (long) (posImplied + 1) * (negImplied + 1);
+					if (score > bestScore) {
+						bestScore = score;
+						branch = pos;
+					}
+				}
+				if (fixed == -2) {
+					// Both ways fail, nothing under this node can be SAT
+					unwind(cube, pushed);
+					return;
+				} else if (fixed >= 0) {
+					// Failed literal, its negation holds in the whole subtree
+					branch = -1;
+					cube.push(fixed);
+					pushed++;
+					if (solver.push(fixed) < 0) {
+						unwind(cube, pushed);
+						return;
+					}
+				} else if (probed == 0) {
+					// Everything is assigned already
+					break;
+				}
+			}
+
+			if (branch == -1) {
+				cubes.add(toCube(cube));
+			} else {
+				for (int lit : new int[] { branch, Literal.negate(branch) }) {
+					cube.push(lit);
+					if (solver.push(lit) >= 0) {
+						split(cube, cubes);
+					}
+					solver.pop();
+					cube.pop();
+				}
+			}
+			unwind(cube, pushed);
+		}
+
+		private void unwind(Deque<Integer> cube, int pushed) {
+			for (int k = 0; k < pushed; k++) {
+				solver.pop();
+				cube.pop();
+			}
+		}
+
+		private long[] toCube(Deque<Integer> cube) {
+			long[] ids = new long[cube.size()];
+			int k = 0;
+			for (Iterator<Integer> it = cube.descendingIterator(); it.hasNext(); ) {
+				ids[k++] = solver.toId(it.next());
+			}
+			return ids;
+		}
+	}
+
+	///////////////////////
+	// CONQUEST
+	///////////////////////
+
+	// Shared state of the parallel phase
+	private class Conquest {
+		private final Object formula;
+		private final List<long[]> cubes;
+		final AtomicReference<long[]> model = new AtomicReference<>();
+		private final AtomicBoolean done = new AtomicBoolean(false);
+		private final Queue<Solver> solvers = new ConcurrentLinkedQueue<>();
+		private final ThreadLocal<Solver> local;
+
+		Conquest(Object formula, List<long[]> cubes) {
+			this.formula = formula;
+			this.cubes = cubes;
+			this.local = ThreadLocal.withInitial(() -> {
+				Solver solver = new Solver(options);
+				solver.add(this.formula);
+				// Cubes become assumptions, so preprocessing must keep their variables
+				for (long[] cube : cubes) {
+					solver.freeze(cube);
+				}
+				solvers.add(solver);
+				return solver;
+			});
+		}
+
+		// Cubes lo to hi, halved until single cubes so idle threads can steal work
+		RecursiveAction task(int lo, int hi) {
+			return new RecursiveAction() {
+				@Override
+				protected void compute() {
+					if (done.get()) {
+						return;
+					}
+					if (hi - lo == 1) {
+						solveCube(cubes.get(lo));
+					} else {
+						int mid = (lo + hi) >>> 1;
+						invokeAll(task(lo, mid), task(mid, hi));
+					}
+				}
+			};
+		}
+
+		private void solveCube(long[] cube) {
+			Solver solver = local.get();
+			// Creating the solver takes a while, and cancel() only reaches the
+			// solvers that existed when it ran
+			if (done.get()) {
+				return;
+			}
+			try {
+				if (solver.solve(cube)) {
+					model.compareAndSet(null, solver.getModel());
+					cancel();
+				} else if (solver.getFailedAssumptions().length == 0) {
+					// UNSAT without any of the cube, so is every other cube
+					cancel();
+				}
+			} catch (CancellationException e) {
+				// Another cube settled the answer
+			}
+		}
+
+		private void cancel() {
+			done.set(true);
+			for (Solver solver : solvers) {
+				solver.interrupt();
+			}
+		}
+	}
+}
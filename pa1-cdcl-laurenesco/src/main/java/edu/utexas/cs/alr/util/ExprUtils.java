@@ -87,6 +87,55 @@ public class ExprUtils
                                      ExprFactory::mkAND);
     }
 
+    // Tseitin's transformation split by top-level conjunct: one CNF expression for
+    // each conjunct of expr, in order, holding the definitions of its subterms and
+    // the unit asserting it. Subterms shared between conjuncts get the same
+    // auxiliary variable in every group. Conjuncts that are clauses already are
+    // kept as they are
+    public static List<Expr> toTseitinGroups(Expr expr)
+    {
+        AuxVarCollectorListener auxVarCollectorListener = new AuxVarCollectorListener(getMaxVarID(expr) + 1);
+        dfsWalk(expr, auxVarCollectorListener);
+        Map<Expr, VarExpr> auxVarMap = auxVarCollectorListener.auxVarMap;
+
+        List<Expr> groups = new ArrayList<>();
+        for (Expr conjunct : conjuncts(expr))
+        {
+            if (isLiteral(conjunct) || isDisjunctionOfLiterals(conjunct))
+            {
+                groups.add(conjunct);
+                continue;
+            }
+            TseitinClausesCollector tseitinClausesCollector = new TseitinClausesCollector(auxVarMap);
+            dfsWalk(conjunct, tseitinClausesCollector);
+            groups.add(tseitinClausesCollector.tseitinClauses.stream()
+                                                          .reduce(auxVarMap.get(conjunct), ExprFactory::mkAND));
+        }
+        return groups;
+    }
+
+    // The top-level conjuncts of expr, left to right. An expression that is not
+    // a conjunction is its only conjunct
+    public static List<Expr> conjuncts(Expr expr)
+    {
+        List<Expr> conjuncts = new ArrayList<>();
+        Deque<Expr> s = new ArrayDeque<>();
+        s.push(expr);
+
+        while (!s.isEmpty())
+        {
+            Expr e = s.pop();
+            if (e.getKind() == Expr.ExprKind.AND)
+            {
+                s.push(((AndExpr) e).getRight());
+                s.push(((AndExpr) e).getLeft());
+            }
+            else
+                conjuncts.add(e);
+        }
+        return conjuncts;
+    }
+
     public static Expr parseFrom(InputStream inStream) throws IOException
     {
         ExprLexer lexer = new ExprLexer(CharStreams.fromStream(inStream));
@@ -238,7 +287,51 @@ public class ExprUtils
         return literals;
     }
 
-    private static long getMaxVarID(Expr e)
+    // VarExpr ids of the variables in e, ascending. The walk uses an explicit
+    // stack and visits shared subterms once
+    public static long[] getVarIds(Expr e)
+    {
+        TreeSet<Long> ids = new TreeSet<>();
+        Set<Expr> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Expr> s = new ArrayDeque<>();
+        s.push(e);
+
+        while (!s.isEmpty())
+        {
+            Expr x = s.pop();
+            if (!visited.add(x))
+                continue;
+
+            switch (x.getKind())
+            {
+                case VAR:
+                    ids.add(((VarExpr) x).getId());
+                    break;
+                case NEG:
+                    s.push(((NegExpr) x).getExpr());
+                    break;
+                case AND:
+                    s.push(((AndExpr) x).getLeft());
+                    s.push(((AndExpr) x).getRight());
+                    break;
+                case OR:
+                    s.push(((OrExpr) x).getLeft());
+                    s.push(((OrExpr) x).getRight());
+                    break;
+                case IMPL:
+                    s.push(((ImplExpr) x).getAntecedent());
+                    s.push(((ImplExpr) x).getConsequent());
+                    break;
+                case EQUIV:
+                    s.push(((EquivExpr) x).getLeft());
+                    s.push(((EquivExpr) x).getRight());
+                    break;
+            }
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    static long getMaxVarID(Expr e)
     {
         MaxIDListener maxIDListener = new MaxIDListener();
         dfsWalk(e, maxIDListener);
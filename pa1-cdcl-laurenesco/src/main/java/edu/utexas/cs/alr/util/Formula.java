@@ -0,0 +1,176 @@
+//
+// Program Name:	Formula.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: Clause database and watch lists of the SAT solver
+//
+
+package edu.utexas.cs.alr.util;
+
+import java.util.*;
+
+///////////////////
+// FORMULA CLASS
+///////////////////
+
+class Formula {
+	private static final double CLAUSE_DECAY = 0.999;
+	private static final double RESCALE_LIMIT = 1e20;
+
+	final ClauseArena arena = new ClauseArena();	// Literals and metadata of every clause
+	IntVec clauses;						// Crefs of the clauses that compose the formula
+	IntVec learnts;						// Crefs of learned clauses that may be deleted again
+	private double clauseActivityInc = 1.0;
+	IntVec[] watches;					// (cref, blocker) pairs watching each literal, indexed by literal code
+	IntVec[] binaries;					// Literals implied by each literal becoming false, from binary clauses
+	Map<Long, Integer> varIndex;		// Dense variable index of each VarExpr id
+	List<Long> varIds;					// VarExpr id of each dense variable
+	private final IntVec scratch = new IntVec();
+
+	public Formula() {
+		clauses = new IntVec();
+		learnts = new IntVec();
+		varIndex = new HashMap<>();
+		varIds = new ArrayList<>();
+	}
+
+	public int addClause(IntVec lits) {
+		int cref = arena.alloc(lits, false);
+		clauses.push(cref);
+		return cref;
+	}
+
+	public int addClause(List<Literal> lits) {
+		scratch.clear();
+		for (Literal lit : lits) {
+			scratch.push(lit.code);
+		}
+		return addClause(scratch);
+	}
+
+	public int addLearned(IntVec lits, int lbd, long conflicts) {
+		int cref = arena.alloc(lits, true);
+		arena.setLbd(cref, lbd);
+		arena.setTier(cref, ClauseArena.tierOf(lbd));
+		arena.setLastUsed(cref, conflicts);
+		learnts.push(cref);
+		return cref;
+	}
+
+	public void bumpClauseActivity(int cref) {
+		double activity = arena.activity(cref) + clauseActivityInc;
+		arena.setActivity(cref, (float) activity);
+		if (activity > RESCALE_LIMIT) {
+			for (int i = 0; i < learnts.size(); i++) {
+				int learned = learnts.get(i);
+				arena.setActivity(learned, (float) (arena.activity(learned) * (1 / RESCALE_LIMIT)));
+			}
+			clauseActivityInc *= 1 / RESCALE_LIMIT;
+		}
+	}
+
+	public void decayClauseActivity() {
+		clauseActivityInc /= CLAUSE_DECAY;
+	}
+
+	// Drop the clauses marked deleted from the learned list and the watch lists
+	public void purgeDeleted() {
+		int kept = 0;
+		for (int i = 0; i < learnts.size(); i++) {
+			if (!arena.isDeleted(learnts.get(i))) {
+				learnts.set(kept++, learnts.get(i));
+			}
+		}
+		learnts.shrink(kept);
+		for (IntVec watchers : watches) {
+			kept = 0;
+			for (int i = 0; i < watchers.size(); i += 2) {
+				if (!arena.isDeleted(watchers.get(i))) {
+					watchers.set(kept++, watchers.get(i));
+					watchers.set(kept++, watchers.get(i + 1));
+				}
+			}
+			watchers.shrink(kept);
+		}
+	}
+
+	// Drop the deleted clauses from the original clause list, which only
+	// inprocessing deletes. All of them must be attached already
+	public void purgeDeletedClauses() {
+		int kept = 0;
+		for (int i = 0; i < clauses.size(); i++) {
+			if (!arena.isDeleted(clauses.get(i))) {
+				clauses.set(kept++, clauses.get(i));
+			}
+		}
+		clauses.shrink(kept);
+	}
+
+	// Compact the arena and point every cref held by the solver at the moved clauses.
+	// Deleted clauses must already be purged from the lists.
+	public void collectGarbage(AssignmentManager am) {
+		int[] old = arena.compact();
+		relocate(clauses, old, 1);
+		relocate(learnts, old, 1);
+		for (IntVec watchers : watches) {
+			relocate(watchers, old, 2);
+		}
+		am.relocateReasons(old);
+	}
+
+	private static void relocate(IntVec crefs, int[] old, int stride) {
+		for (int i = 0; i < crefs.size(); i += stride) {
+			crefs.set(i, ClauseArena.forward(old, crefs.get(i)));
+		}
+	}
+
+	public int numVars() {
+		return varIds.size();
+	}
+
+	// Dense variable index for a VarExpr id, assigned in order of first appearance
+	public int varOf(long id) {
+		Integer var = varIndex.get(id);
+		if (var == null) {
+			var = varIds.size();
+			varIndex.put(id, var);
+			varIds.add(id);
+		}
+		return var;
+	}
+
+	// Dense variable index for a variable name of the form xN
+	public int varOf(String name) {
+		return varOf(Long.parseLong(name.substring(1)));
+	}
+
+	// Allocate a watch list for every literal of the variables added since the last call
+	public void growWatches() {
+		int old = watches == null ? 0 : watches.length;
+		if (old == 2 * numVars()) {
+			return;
+		}
+		watches = old == 0 ? new IntVec[2 * numVars()] : Arrays.copyOf(watches, 2 * numVars());
+		binaries = old == 0 ? new IntVec[2 * numVars()] : Arrays.copyOf(binaries, 2 * numVars());
+		for (int i = old; i < watches.length; i++) {
+			watches[i] = new IntVec();
+			binaries[i] = new IntVec();
+		}
+	}
+
+	// Store the binary clause (a or b) as the implications ~a -> b and ~b -> a
+	public void addBinary(int a, int b) {
+		binaries[a].push(b);
+		binaries[b].push(a);
+	}
+
+	// Watch the first two literals of the clause, each with the other as blocker
+	public void watchClause(int cref) {
+		int first = arena.lit(cref, 0), second = arena.lit(cref, 1);
+		watches[first].push(cref);
+		watches[first].push(second);
+		watches[second].push(cref);
+		watches[second].push(first);
+	}
+
+}
@@ -0,0 +1,85 @@
+//
+// Program Name:	IntVec.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: Growable int array used throughout the solver
+//
+
+package edu.utexas.cs.alr.util;
+
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+/////////////////////////
+// INT VECTOR CLASS
+/////////////////////////
+
+// Growable int array, avoids boxing for the solver's scratch buffers
+class IntVec {
+	private int[] data = new int[16];
+	private int size = 0;
+
+	public void push(int value) {
+		if (size == data.length) {
+			data = Arrays.copyOf(data, size * 2);
+		}
+		data[size++] = value;
+	}
+
+	public int pop() { return data[--size]; }
+
+	public int get(int i) { return data[i]; }
+
+	public void set(int i, int value) { data[i] = value; }
+
+	public void swap(int i, int j) {
+		int tmp = data[i];
+		data[i] = data[j];
+		data[j] = tmp;
+	}
+
+	public int size() { return size; }
+
+	// Drop everything past the first newSize elements
+	public void shrink(int newSize) { size = newSize; }
+
+	public void clear() { size = 0; }
+
+	// Stable sort by order, a comparator of two elements, without boxing them
+	public void sort(IntBinaryOperator order) {
+		if (size > 1) {
+			mergeSort(new int[size], 0, size, order);
+		}
+	}
+
+	private void mergeSort(int[] buffer, int lo, int hi, IntBinaryOperator order) {
+		if (hi - lo <= 16) {
+			for (int i = lo + 1; i < hi; i++) {
+				int value = data[i];
+				int j = i - 1;
+				for (; j >= lo && order.applyAsInt(data[j], value) > 0; j--) {
+					data[j + 1] = data[j];
+				}
+				data[j + 1] = value;
+			}
+			return;
+		}
+		int mid = (lo + hi) >>> 1;
+		mergeSort(buffer, lo, mid, order);
+		mergeSort(buffer, mid, hi, order);
+		if (order.applyAsInt(data[mid - 1], data[mid]) <= 0) {
+			return;
+		}
+		System.arraycopy(data, lo, buffer, lo, hi - lo);
+		int i = lo, j = mid, k = lo;
+		while (i < mid && j < hi) {
+			data[k++] = order.applyAsInt(buffer[j], buffer[i]) < 0 ? buffer[j++] : buffer[i++];
+		}
+		while (i < mid) {
+			data[k++] = buffer[i++];
+		}
+		while (j < hi) {
+			data[k++] = buffer[j++];
+		}
+	}
+}
@@ -0,0 +1,48 @@
+//
+// Program Name:	Literal.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: Literal encoding of the SAT solver
+//
+
+package edu.utexas.cs.alr.util;
+
+///////////////////
+// LITERAL CLASS
+///////////////////
+
+// Literals are encoded as var * 2 + sign, where var is the dense variable index
+// and sign is 1 for a negated literal. The static helpers work on the raw code.
+class Literal {
+	final int code;		// Encoded literal
+
+	public Literal(int var, boolean negation) {
+		this.code = code(var, negation);
+	}
+
+	public Literal(int code) {
+		this.code = code;
+	}
+
+	public int var() { return code >> 1; }
+
+	public boolean neg() { return (code & 1) == 1; }
+
+	public static int code(int var, boolean negation) { return (var << 1) | (negation ? 1 : 0); }
+
+	public static int var(int lit) { return lit >> 1; }
+
+	public static int negate(int lit) { return lit ^ 1; }
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof Literal)) return false;
+		return code == ((Literal) o).code;
+	}
+
+	@Override
+	public int hashCode() {
+		return code;
+	}
+}
@@ -0,0 +1,267 @@
+//
+// Program Name:	ModelEnumerator.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: Enumeration of the models of a formula over its input variables
+//
+
+package edu.utexas.cs.alr.util;
+
+import edu.utexas.cs.alr.ast.*;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+////////////////////////////
+// MODEL ENUMERATOR CLASS
+////////////////////////////
+
+// Enumerates the satisfying assignments of a formula projected onto its input
+// variables, the ones it mentions, leaving out the Tseitin auxiliaries above
+// them. The inputs are frozen so preprocessing keeps them.
+//
+// Each model is reported as a cube, a partial assignment of the inputs all of
+// whose completions satisfy the formula, and is then excluded with the clause
+// that negates the cube. The cube is the set of inputs that justify the formula
+// under the model: a true conjunction needs both sides, a true disjunction only
+// one of them, and so on down to the inputs. Cubes can overlap; without
+// minimization every cube assigns all inputs and they do not.
+//
+// Everything runs in one search of an incremental Solver (Solver.enumerate):
+// the blocking clause becomes the conflict the search backjumps from, instead
+// of a new solve call starting at level 0.
+public class ModelEnumerator {
+
+	private final Expr expr;
+	private final Solver solver;
+	private final long[] inputs;					// VarExpr id of each input
+	private final int[] inputLits;					// Its dense literal in the solver
+	private final Map<Long, Integer> inputIndex = new HashMap<>();
+	private boolean minimize = true;
+	private boolean complete = false;
+
+	// Per model: the input values, the value of each subterm and the inputs
+	// the justification needs
+	private final boolean[] inputValues;
+	private final boolean[] required;
+	private final Map<Expr, Boolean> values = new IdentityHashMap<>();
+	private final Set<Expr> justified = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final IntVec blocking = new IntVec();
+
+	public ModelEnumerator(Expr expr) {
+		this(expr, new SolverOptions());
+	}
+
+	public ModelEnumerator(Expr expr, SolverOptions options) {
+		this.expr = expr;
+		inputs = ExprUtils.getVarIds(expr);
+		solver = new Solver(options);
+		solver.add(ExprUtils.toTseitin(expr));
+		solver.freeze(inputs);
+		inputLits = new int[inputs.length];
+		for (int i = 0; i < inputs.length; i++) {
+			inputIndex.put(inputs[i], i);
+			inputLits[i] = solver.literal(inputs[i]);
+		}
+		inputValues = new boolean[inputs.length];
+		required = new boolean[inputs.length];
+	}
+
+	// Report full assignments of the inputs instead of cubes. On by default
+	public void setMinimize(boolean minimize) {
+		this.minimize = minimize;
+	}
+
+	// Stream the models not reported yet to callback, as signed VarExpr ids of
+	// the inputs in the cube, until callback returns false or no model is left.
+	// Returns the number of cubes reported. A later call goes on where this one
+	// stopped
+	public long enumerate(Predicate<long[]> callback) {
+		long[] count = { 0 };
+		long[][] last = { null };
+		boolean stopped = solver.enumerate(() -> {
+			justify();
+			blocking.clear();
+			int size = 0;
+			for (int i = 0; i < inputs.length; i++) {
+				if (required[i]) {
+					size++;
+				}
+			}
+			long[] cube = new long[size];
+			size = 0;
+			for (int i = 0; i < inputs.length; i++) {
+				if (required[i]) {
+					cube[size++] = inputValues[i] ? inputs[i] : -inputs[i];
+					blocking.push(inputValues[i] ? Literal.negate(inputLits[i]) : inputLits[i]);
+				}
+			}
+			count[0]++;
+			last[0] = cube;
+			return callback.test(cube) ? blocking : null;
+		});
+		if (stopped) {
+			// The solver is back at level 0, block the last cube there
+			long[] clause = new long[last[0].length];
+			for (int k = 0; k < clause.length; k++) {
+				clause[k] = -last[0][k];
+			}
+			solver.addClause(clause);
+		}
+		complete = !stopped;
+		return count[0];
+	}
+
+	// True once an enumeration ran out of models
+	public boolean isComplete() {
+		return complete;
+	}
+
+	// The input variables as VarExpr ids, ascending
+	public long[] getInputs() {
+		return inputs.clone();
+	}
+
+	public SolverStats getStats() {
+		return solver.getStats();
+	}
+
+	// ----------------- Cube minimization ----------------- //
+
+	// Mark in required the inputs that justify the formula under the current model
+	private void justify() {
+		for (int i = 0; i < inputs.length; i++) {
+			inputValues[i] = solver.litValue(inputLits[i]) == AssignmentManager.TRUE;
+			required[i] = !minimize;
+		}
+		if (!minimize) {
+			return;
+		}
+
+		evaluate();
+		justified.clear();
+		Deque<Expr> pending = new ArrayDeque<>();
+		pending.push(expr);
+		while (!pending.isEmpty()) {
+			Expr e = pending.pop();
+			if (!justified.add(e)) {
+				continue;
+			}
+			boolean value = values.get(e);
+			switch (e.getKind()) {
+				case VAR:
+					required[inputIndex.get(((VarExpr) e).getId())] = true;
+					break;
+				case NEG:
+					pending.push(((NegExpr) e).getExpr());
+					break;
+				case AND: {
+					AndExpr and = (AndExpr) e;
+					justifyBinary(pending, and.getLeft(), and.getRight(), value, false, false);
+					break;
+				}
+				case OR: {
+					OrExpr or = (OrExpr) e;
+					justifyBinary(pending, or.getLeft(), or.getRight(), !value, true, true);
+					break;
+				}
+				case IMPL: {
+					// True by a false antecedent or a true consequent
+					ImplExpr impl = (ImplExpr) e;
+					justifyBinary(pending, impl.getAntecedent(), impl.getConsequent(), !value, false, true);
+					break;
+				}
+				case EQUIV: {
+					EquivExpr equiv = (EquivExpr) e;
+					pending.push(equiv.getRight());
+					pending.push(equiv.getLeft());
+					break;
+				}
+			}
+		}
+	}
+
+	// Justify a binary connective. If both sides are needed, push both, otherwise
+	// one side whose value is the deciding one: leftDecides for the left side,
+	// rightDecides for the right. A side justified already is preferred
+	private void justifyBinary(Deque<Expr> pending, Expr left, Expr right, boolean both,
+			boolean leftDecides, boolean rightDecides) {
+		if (both) {
+			pending.push(right);
+			pending.push(left);
+			return;
+		}
+		boolean leftOk = values.get(left) == leftDecides;
+		boolean rightOk = values.get(right) == rightDecides;
+		if (leftOk && (!rightOk || justified.contains(left) || !justified.contains(right))) {
+			pending.push(left);
+		} else {
+			pending.push(right);
+		}
+	}
+
+	// Value of every subterm under the current model, children first
+	private void evaluate() {
+		values.clear();
+		Deque<Expr> pending = new ArrayDeque<>();
+		pending.push(expr);
+		while (!pending.isEmpty()) {
+			Expr e = pending.peek();
+			if (values.containsKey(e)) {
+				pending.pop();
+				continue;
+			}
+			if (e.getKind() == Expr.ExprKind.VAR) {
+				values.put(e, inputValues[inputIndex.get(((VarExpr) e).getId())]);
+				pending.pop();
+				continue;
+			}
+			Expr[] children = children(e);
+			boolean ready = true;
+			for (Expr child : children) {
+				if (!values.containsKey(child)) {
+					pending.push(child);
+					ready = false;
+				}
+			}
+			if (!ready) {
+				continue;
+			}
+			pending.pop();
+			boolean first = values.get(children[0]);
+			switch (e.getKind()) {
+				case NEG:
+					values.put(e, !first);
+					break;
+				case AND:
+					values.put(e, first && values.get(children[1]));
+					break;
+				case OR:
+					values.put(e, first || values.get(children[1]));
+					break;
+				case IMPL:
+					values.put(e, !first || values.get(children[1]));
+					break;
+				default:
+					values.put(e, first == values.get(children[1]));
+			}
+		}
+	}
+
+	private static Expr[] children(Expr e) {
+		switch (e.getKind()) {
+			case NEG:
+				return new Expr[] { ((NegExpr) e).getExpr() };
+			case AND:
+				return new Expr[] { ((AndExpr) e).getLeft(), ((AndExpr) e).getRight() };
+			case OR:
+				return new Expr[] { ((OrExpr) e).getLeft(), ((OrExpr) e).getRight() };
+			case IMPL:
+				return new Expr[] { ((ImplExpr) e).getAntecedent(), ((ImplExpr) e).getConsequent() };
+			case EQUIV:
+				return new Expr[] { ((EquivExpr) e).getLeft(), ((EquivExpr) e).getRight() };
+			default:
+				return new Expr[0];
+		}
+	}
+}
@@ -0,0 +1,128 @@
+//
+// Program Name:	Portfolio.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: Parallel portfolio of differently configured solvers
+//
+
+package edu.utexas.cs.alr.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+///////////////////////
+// PORTFOLIO CLASS
+///////////////////////
+
+// Runs several Solver workers with different settings on the same formula, one
+// thread each. The first worker to answer wins and the others are interrupted.
+// Workers share their short, low-LBD learned clauses through a ClauseExchange.
+public class Portfolio {
+
+	private static final int EXCHANGE_CAPACITY = 1 << 14;
+	private static final long SHUTDOWN_MILLIS = 1000;		// Wait for the losing workers to stop
+
+	private final List<SolverOptions> configs;
+	private long[] model;
+	private SolverStats stats = new SolverStats();
+	private int winner = -1;
+
+	// n workers configured by defaultConfigs
+	public Portfolio(int n) {
+		this(defaultConfigs(n, new SolverOptions()));
+	}
+
+	public Portfolio(List<SolverOptions> configs) {
+		if (configs.isEmpty()) {
+			throw new IllegalArgumentException("A portfolio needs at least one worker");
+		}
+		this.configs = configs;
+	}
+
+	// Vary the seed, restart policy and phase settings of base over n workers.
+	// Worker 0 runs base unchanged.
+	public static List<SolverOptions> defaultConfigs(int n, SolverOptions base) {
+		List<SolverOptions> configs = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			SolverOptions opts = base.copy();
+			opts.seed = base.seed + i;
+			if (i % 2 == 1) {
+				opts.restarts = SolverOptions.Restarts.LUBY;
+			}
+			if (i % 4 >= 2) {
+				opts.defaultPhase = !base.defaultPhase;
+			}
+			if (i >= 4) {
+				opts.randomPhaseFreq = 0.01 * (i / 4);
+			}
+			configs.add(opts);
+		}
+		return configs;
+	}
+
+	// Decide satisfiability of a CNF formula (an Expr or its text) with all workers
+	public boolean solve(Object f) throws InterruptedException {
+		int n = configs.size();
+		ClauseExchange exchange = new ClauseExchange(EXCHANGE_CAPACITY);
+		List<Solver> workers = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			Solver solver = new Solver(configs.get(i));
+			solver.share(exchange, i);
+			workers.add(solver);
+		}
+
+		// Daemon threads, so a worker still preprocessing or vivifying when it is
+		// interrupted does not keep the JVM alive
+		ExecutorService pool = Executors.newFixedThreadPool(n, task -> {
+			Thread thread = new Thread(task, "portfolio-worker");
+			thread.setDaemon(true);
+			return thread;
+		});
+		CompletionService<Integer> done = new ExecutorCompletionService<>(pool);
+		try {
+			for (int i = 0; i < n; i++) {
+				final int id = i;
+				// Loading happens on the worker threads too. Every worker loads
+				// the same clauses in the same order, as the exchange requires
+				done.submit(() -> workers.get(id).solve(f) ? id : -id - 1);
+			}
+
+			// First answer wins, a worker that failed only counts if all of them do
+			ExecutionException failure = null;
+			for (int i = 0; i < n; i++) {
+				try {
+					int result = done.take().get();
+					winner = result >= 0 ? result : -result - 1;
+					model = workers.get(winner).getModel();
+					stats = workers.get(winner).getStats();
+					return result >= 0;
+				} catch (ExecutionException e) {
+					failure = e;
+				}
+			}
+			throw new IllegalStateException("All portfolio workers failed", failure.getCause());
+		} finally {
+			for (Solver solver : workers) {
+				solver.interrupt();
+			}
+			pool.shutdownNow();
+			pool.awaitTermination(SHUTDOWN_MILLIS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	// Satisfying assignment found by the winner, or null if the answer was UNSAT
+	public long[] getModel() {
+		return model;
+	}
+
+	// Counters of the winning worker
+	public SolverStats getStats() {
+		return stats;
+	}
+
+	// Index of the configuration that answered first
+	public int getWinner() {
+		return winner;
+	}
+}
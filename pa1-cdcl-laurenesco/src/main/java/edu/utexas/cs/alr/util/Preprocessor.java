@@ -0,0 +1,743 @@
+//
+// Program Name:	Preprocessor.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: CNF simplification run before the search
+//
+
+package edu.utexas.cs.alr.util;
+
+import java.util.*;
+
+///////////////////////
+// PREPROCESSOR CLASS
+///////////////////////
+
+// Shrinks the clause set before CDCL starts, in the style of SatELite:
+//
+// - unit propagation at the top level,
+// - equivalent-literal substitution: literals in one strongly connected
+//   component of the binary implication graph are equal, so all of them are
+//   replaced by a representative,
+// - failed-literal probing: a literal whose propagation conflicts is fixed to
+//   false, and every literal a probe implies through a longer clause gets a
+//   binary clause (hyper-binary resolution) so the next substitution sees it,
+// - backward subsumption: a clause C removes every clause that contains it,
+// - self-subsuming strengthening: if C with one literal flipped is contained in
+//   D, that literal's negation is dropped from D,
+// - bounded variable elimination: a variable is resolved away when the
+//   non-tautological resolvents of its clauses are no more than the clauses.
+//
+// Every clause is found through the occurrence lists of its literals. Clauses of
+// an eliminated or substituted variable go on an elimination stack that
+// extendModel() uses to give the variable a value satisfying them. With a
+// ProofWriter, every derived clause is logged before the clauses it was derived
+// from are deleted, so each addition is RUP.
+class Preprocessor {
+	private static final int RESOLVENT_LIMIT = 20;			// Longest resolvent elimination may add
+	private static final int PRODUCT_LIMIT = 400;			// Most resolution pairs tried for one variable
+	private static final long STEP_LIMIT = 20_000_000;		// Literal visits the whole run may spend
+
+	private static final int NO_SUBSUMPTION = -1, SUBSUMES = -2;
+
+	private final int numVars;
+	private final boolean[] frozen;					// Variables that must not be eliminated
+	private final ProofWriter proof;				// Null when no proof is written
+	private final List<int[]> clauses = new ArrayList<>();	// Sorted literals, null once deleted
+	private long[] signatures = new long[16];		// Bit set of the variables of each clause (mod 64)
+	private final IntVec[] occurs;					// Clauses each literal appears in, may hold stale entries
+	private final byte[] values;					// Top-level assignment, by variable
+	private final IntVec units = new IntVec();		// Literals fixed at the top level
+	private int propagated = 0;						// Units already propagated
+	private final IntVec queue = new IntVec();		// Clauses to check for backward subsumption
+	private final boolean[] eliminated;
+	private final IntVec elimStack = new IntVec();	// Clauses of eliminated variables, each followed by its length
+	private final int[] litMarks;					// Scratch marks, valid when equal to stamp
+	private final IntVec probeTrail = new IntVec();	// Literals implied by the current probe
+	private int stamp = 0;
+	private long steps = 0;
+
+	int subsumed = 0, strengthened = 0, eliminatedVars = 0;
+	int substitutedVars = 0, failedLiterals = 0, hyperBinaries = 0;
+
+	Preprocessor(int numVars, boolean[] frozen, ProofWriter proof) {
+		this.numVars = numVars;
+		this.frozen = frozen;
+		this.proof = proof;
+		occurs = new IntVec[2 * numVars];
+		for (int i = 0; i < occurs.length; i++) {
+			occurs[i] = new IntVec();
+		}
+		values = new byte[numVars];
+		eliminated = new boolean[numVars];
+		litMarks = new int[2 * numVars];
+	}
+
+	// Add an input clause. Duplicate literals are merged and tautologies dropped.
+	// Returns false if the clause is empty
+	boolean addClause(int[] lits) {
+		int[] sorted = normalize(lits);
+		if (sorted == null) {
+			return true;
+		} else if (sorted.length == 0) {
+			return false;
+		} else if (sorted.length == 1) {
+			return assign(sorted[0]);
+		}
+		store(sorted);
+		return true;
+	}
+
+	// Sorted copy of lits without duplicates, or null if it is a tautology
+	private static int[] normalize(int[] lits) {
+		int[] sorted = lits.clone();
+		Arrays.sort(sorted);
+		int size = 0;
+		for (int k = 0; k < sorted.length; k++) {
+			if (size > 0 && sorted[size - 1] == sorted[k]) {
+				continue;
+			}
+			if (size > 0 && sorted[size - 1] == Literal.negate(sorted[k])) {
+				return null;
+			}
+			sorted[size++] = sorted[k];
+		}
+		return Arrays.copyOf(sorted, size);
+	}
+
+	// Run all simplifications. Returns false if the clauses are UNSAT
+	boolean run() {
+		if (!propagate()) {
+			return false;
+		}
+		// Probing adds binary clauses, which can close new equivalence cycles
+		if (!substituteEquivalences() || !probeRoots() || !substituteEquivalences()) {
+			return false;
+		}
+		for (int i = 0; i < clauses.size(); i++) {
+			queue.push(i);
+		}
+		if (!subsumeQueued()) {
+			return false;
+		}
+
+		// Cheapest variables first, as counted before any elimination
+		Integer[] order = new Integer[numVars];
+		for (int var = 0; var < numVars; var++) {
+			order[var] = var;
+		}
+		Arrays.sort(order, Comparator.comparingInt(var ->
+				occurs[Literal.code(var, false)].size() * occurs[Literal.code(var, true)].size()));
+		for (int var : order) {
+			if (steps > STEP_LIMIT) {
+				break;
+			}
+			if (!eliminate(var) || !propagate() || !subsumeQueued()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// The simplified clauses, top-level units included
+	List<int[]> result() {
+		List<int[]> result = new ArrayList<>();
+		for (int k = 0; k < units.size(); k++) {
+			result.add(new int[] { units.get(k) });
+		}
+		for (int[] clause : clauses) {
+			if (clause != null) {
+				result.add(clause);
+			}
+		}
+		return result;
+	}
+
+	boolean isEliminated(int var) {
+		return eliminated[var];
+	}
+
+	IntVec elimStack() {
+		return elimStack;
+	}
+
+	// Give the eliminated variables values that satisfy their clauses. values holds
+	// the model of the simplified formula and is filled in for the eliminated
+	// variables. Later eliminations are undone first, since earlier ones may
+	// depend on them. Each variable's last entry is a unit that sets a default,
+	// and a clause of the other polarity left unsatisfied flips it.
+	static void extendModel(IntVec elimStack, boolean[] values) {
+		int i = elimStack.size() - 1;
+		while (i > 0) {
+			int length = elimStack.get(i);
+			int start = i - length;
+			boolean satisfied = false;
+			for (int k = start + 1; k < i && !satisfied; k++) {
+				int lit = elimStack.get(k);
+				satisfied = values[Literal.var(lit)] != ((lit & 1) == 1);
+			}
+			if (!satisfied) {
+				int pivot = elimStack.get(start);
+				values[Literal.var(pivot)] = (pivot & 1) == 0;
+			}
+			i = start - 1;
+		}
+	}
+
+	// ----------------- Clause store ----------------- //
+
+	private int store(int[] lits) {
+		int index = clauses.size();
+		clauses.add(lits);
+		if (index == signatures.length) {
+			signatures = Arrays.copyOf(signatures, index * 2);
+		}
+		signatures[index] = signature(lits);
+		for (int lit : lits) {
+			occurs[lit].push(index);
+		}
+		return index;
+	}
+
+	private static long signature(int[] lits) {
+		long sig = 0;
+		for (int lit : lits) {
+			sig |= 1L << (Literal.var(lit) & 63);
+		}
+		return sig;
+	}
+
+	// Deleted clauses stay in the occurrence lists until the next clean()
+	private void delete(int index) {
+		if (proof != null) {
+			proof.delete(clauses.get(index));
+		}
+		clauses.set(index, null);
+	}
+
+	// Live clauses containing lit
+	private IntVec clean(int lit) {
+		IntVec list = occurs[lit];
+		int kept = 0;
+		for (int k = 0; k < list.size(); k++) {
+			if (clauses.get(list.get(k)) != null) {
+				list.set(kept++, list.get(k));
+			}
+		}
+		list.shrink(kept);
+		return list;
+	}
+
+	// Drop lit from the clause. Returns false if the clause becomes empty
+	private boolean strengthen(int index, int lit) {
+		int[] old = clauses.get(index);
+		int[] lits = new int[old.length - 1];
+		int size = 0;
+		for (int other : old) {
+			if (other != lit) {
+				lits[size++] = other;
+			}
+		}
+		if (proof != null) {
+			proof.add(lits);
+			proof.delete(old);
+		}
+		clauses.set(index, lits);
+		signatures[index] = signature(lits);
+		IntVec list = occurs[lit];
+		for (int k = 0; k < list.size(); k++) {
+			if (list.get(k) == index) {
+				list.set(k, list.get(list.size() - 1));
+				list.pop();
+				break;
+			}
+		}
+		strengthened++;
+		if (lits.length == 0) {
+			return false;
+		} else if (lits.length == 1) {
+			// Units live on in units only. Not a proof deletion, the unit must stay
+			clauses.set(index, null);
+			return assign(lits[0]);
+		}
+		queue.push(index);
+		return true;
+	}
+
+	// ----------------- Top-level propagation ----------------- //
+
+	// Fix lit at the top level. Returns false if it is already false
+	private boolean assign(int lit) {
+		byte value = (lit & 1) == 0 ? (byte) 1 : (byte) -1;
+		int var = Literal.var(lit);
+		if (values[var] != 0) {
+			return values[var] == value;
+		}
+		values[var] = value;
+		units.push(lit);
+		return true;
+	}
+
+	// Remove the clauses satisfied by the units and the false literals from the
+	// rest. Returns false on an empty clause
+	private boolean propagate() {
+		while (propagated < units.size()) {
+			int lit = units.get(propagated++);
+			IntVec satisfied = clean(lit);
+			for (int k = 0; k < satisfied.size(); k++) {
+				delete(satisfied.get(k));
+			}
+			satisfied.clear();
+			for (int index : toArray(clean(Literal.negate(lit)))) {
+				if (clauses.get(index) != null && !strengthen(index, Literal.negate(lit))) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static int[] toArray(IntVec vec) {
+		int[] array = new int[vec.size()];
+		for (int k = 0; k < array.length; k++) {
+			array[k] = vec.get(k);
+		}
+		return array;
+	}
+
+	// ----------------- Subsumption ----------------- //
+
+	// Backward subsumption and strengthening with every queued clause
+	private boolean subsumeQueued() {
+		while (queue.size() > 0) {
+			if (!propagate()) {
+				return false;
+			}
+			int index = queue.pop();
+			int[] c = clauses.get(index);
+			if (c == null || steps > STEP_LIMIT) {
+				continue;
+			}
+
+			// Candidates contain the literal of c, or its negation, with the fewest occurrences
+			int best = c[0];
+			for (int lit : c) {
+				if (occurs[lit].size() + occurs[Literal.negate(lit)].size()
+						< occurs[best].size() + occurs[Literal.negate(best)].size()) {
+					best = lit;
+				}
+			}
+			for (int lit : new int[] { best, Literal.negate(best) }) {
+				for (int d : toArray(clean(lit))) {
+					int[] other = clauses.get(d);
+					if (d == index || other == null || other.length < c.length
+							|| (signatures[index] & ~signatures[d]) != 0) {
+						continue;
+					}
+					int result = subsumes(c, other);
+					if (result == SUBSUMES) {
+						delete(d);
+						subsumed++;
+					} else if (result != NO_SUBSUMPTION && !strengthen(d, Literal.negate(result))) {
+						return false;
+					}
+					if (clauses.get(index) != c) {
+						// c itself was strengthened by a unit, it is queued again
+						break;
+					}
+				}
+			}
+		}
+		return propagate();
+	}
+
+	// SUBSUMES if every literal of c is in d. Otherwise the one literal of c whose
+	// negation is in d while all other literals of c are, or NO_SUBSUMPTION
+	private int subsumes(int[] c, int[] d) {
+		stamp++;
+		for (int lit : d) {
+			litMarks[lit] = stamp;
+		}
+		steps += c.length + d.length;
+		int flipped = NO_SUBSUMPTION;
+		for (int lit : c) {
+			if (litMarks[lit] == stamp) {
+				continue;
+			}
+			if (flipped == NO_SUBSUMPTION && litMarks[Literal.negate(lit)] == stamp) {
+				flipped = lit;
+			} else {
+				return NO_SUBSUMPTION;
+			}
+		}
+		return flipped == NO_SUBSUMPTION ? SUBSUMES : flipped;
+	}
+
+	// ----------------- Equivalent literals ----------------- //
+
+	// Find the strongly connected components of the binary implication graph,
+	// where a clause (a b) gives the edges -a -> b and -b -> a, and replace every
+	// literal by its component's representative. Frozen variables are never
+	// replaced. Returns false if a literal is equivalent to its negation
+	private boolean substituteEquivalences() {
+		int[] index = new int[2 * numVars];
+		int[] low = new int[2 * numVars];
+		int[] edge = new int[2 * numVars];				// Next occurrence to follow, per literal
+		int[] repr = new int[2 * numVars];
+		boolean[] onStack = new boolean[2 * numVars];
+		Arrays.fill(index, -1);
+		Arrays.fill(repr, -1);
+		IntVec path = new IntVec();						// DFS call stack
+		IntVec component = new IntVec();				// Tarjan's stack
+		int counter = 0;
+
+		// Iterative Tarjan, the implication chains can be far too deep for recursion
+		for (int root = 0; root < 2 * numVars; root++) {
+			if (index[root] >= 0 || values[Literal.var(root)] != 0 || eliminated[Literal.var(root)]) {
+				continue;
+			}
+			index[root] = low[root] = counter++;
+			component.push(root);
+			onStack[root] = true;
+			path.push(root);
+			while (path.size() > 0) {
+				int lit = path.get(path.size() - 1);
+				IntVec list = occurs[Literal.negate(lit)];
+				int next = -1;
+				while (next == -1 && edge[lit] < list.size()) {
+					int[] c = clauses.get(list.get(edge[lit]++));
+					steps++;
+					if (c == null || c.length != 2) {
+						continue;
+					}
+					int succ = c[0] == Literal.negate(lit) ? c[1] : c[0];
+					if (index[succ] < 0) {
+						next = succ;
+					} else if (onStack[succ]) {
+						low[lit] = Math.min(low[lit], index[succ]);
+					}
+				}
+				if (next >= 0) {
+					index[next] = low[next] = counter++;
+					component.push(next);
+					onStack[next] = true;
+					path.push(next);
+					continue;
+				}
+
+				path.pop();
+				if (path.size() > 0) {
+					int parent = path.get(path.size() - 1);
+					low[parent] = Math.min(low[parent], low[lit]);
+				}
+				if (low[lit] == index[lit] && !closeComponent(lit, component, onStack, repr)) {
+					return false;
+				}
+			}
+		}
+
+		// Substituted variables take the value of their representative. The
+		// elimination stack holds both directions of the equivalence
+		boolean any = false;
+		for (int var = 0; var < numVars; var++) {
+			int pos = Literal.code(var, false);
+			int r = repr[pos];
+			if (r < 0 || r == pos || frozen[var]) {
+				continue;
+			}
+			pushElimClause(new int[] { Literal.negate(pos), r }, Literal.negate(pos));
+			pushElimClause(new int[] { pos, Literal.negate(r) }, pos);
+			eliminated[var] = true;
+			substitutedVars++;
+			any = true;
+		}
+		if (!any) {
+			return true;
+		}
+
+		// The old clauses go after all the rewritten ones are in, the proof of each
+		// rewritten clause follows the implication chains through the old binaries
+		int end = clauses.size();
+		IntVec rewritten = new IntVec();
+		for (int i = 0; i < end; i++) {
+			int[] c = clauses.get(i);
+			if (c == null || !hasSubstituted(c)) {
+				continue;
+			}
+			int[] mapped = new int[c.length];
+			for (int k = 0; k < c.length; k++) {
+				int var = Literal.var(c[k]);
+				mapped[k] = eliminated[var] ? repr[c[k]] : c[k];
+			}
+			rewritten.push(i);
+			int[] sorted = normalize(mapped);
+			if (sorted == null) {
+				continue;
+			}
+			if (proof != null) {
+				proof.add(sorted);
+			}
+			if (sorted.length == 0 || (sorted.length == 1 && !assign(sorted[0]))) {
+				return false;
+			} else if (sorted.length > 1) {
+				queue.push(store(sorted));
+			}
+		}
+		for (int k = 0; k < rewritten.size(); k++) {
+			delete(rewritten.get(k));
+		}
+		for (int var = 0; var < numVars; var++) {
+			if (eliminated[var]) {
+				occurs[Literal.code(var, false)].clear();
+				occurs[Literal.code(var, true)].clear();
+			}
+		}
+		return propagate();
+	}
+
+	// Pop the component rooted at lit off Tarjan's stack and give it a
+	// representative, the negation of its mirror component's if that one is done
+	// already, otherwise a frozen member or the smallest variable. Returns false
+	// if the component holds a literal and its negation
+	private boolean closeComponent(int lit, IntVec component, boolean[] onStack, int[] repr) {
+		int start = component.size();
+		do {
+			start--;
+			onStack[component.get(start)] = false;
+		} while (component.get(start) != lit);
+
+		stamp++;
+		for (int k = start; k < component.size(); k++) {
+			litMarks[component.get(k)] = stamp;
+		}
+		int mirror = -1, frozenMember = -1, smallest = -1;
+		for (int k = start; k < component.size(); k++) {
+			int member = component.get(k);
+			if (litMarks[Literal.negate(member)] == stamp) {
+				if (proof != null) {
+					// member implies its own negation
+					proof.add(Literal.negate(member));
+				}
+				return false;
+			}
+			if (repr[Literal.negate(member)] >= 0) {
+				mirror = Literal.negate(repr[Literal.negate(member)]);
+			}
+			if (frozenMember < 0 && frozen[Literal.var(member)]) {
+				frozenMember = member;
+			}
+			if (smallest < 0 || member < smallest) {
+				smallest = member;
+			}
+		}
+		int chosen = mirror >= 0 ? mirror : frozenMember >= 0 ? frozenMember : smallest;
+		for (int k = start; k < component.size(); k++) {
+			repr[component.get(k)] = chosen;
+		}
+		component.shrink(start);
+		return true;
+	}
+
+	private boolean hasSubstituted(int[] c) {
+		for (int lit : c) {
+			if (eliminated[Literal.var(lit)]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// ----------------- Probing ----------------- //
+
+	// Probe the roots of the binary implication graph, literals that no binary
+	// clause implies, since everything below a root is implied by probing it.
+	// Returns false if both values of some variable fail
+	private boolean probeRoots() {
+		int[] binaryOccurs = new int[2 * numVars];
+		for (int[] c : clauses) {
+			if (c != null && c.length == 2) {
+				binaryOccurs[c[0]]++;
+				binaryOccurs[c[1]]++;
+			}
+		}
+		List<int[]> resolvents = new ArrayList<>();
+		for (int lit = 0; lit < 2 * numVars && steps <= STEP_LIMIT; lit++) {
+			int var = Literal.var(lit);
+			if (values[var] != 0 || eliminated[var]
+					|| binaryOccurs[lit] > 0 || binaryOccurs[Literal.negate(lit)] == 0) {
+				continue;
+			}
+			resolvents.clear();
+			if (!probe(lit, resolvents)) {
+				failedLiterals++;
+				if (proof != null) {
+					proof.add(Literal.negate(lit));
+				}
+				if (!assign(Literal.negate(lit)) || !propagate()) {
+					return false;
+				}
+				continue;
+			}
+			for (int[] resolvent : resolvents) {
+				if (proof != null) {
+					proof.add(resolvent);
+				}
+				queue.push(store(resolvent));
+				binaryOccurs[resolvent[0]]++;
+				binaryOccurs[resolvent[1]]++;
+				hyperBinaries++;
+			}
+		}
+		return true;
+	}
+
+	// Propagate lit on a scratch trail, binary clauses before longer ones so that
+	// binary implications are found first. Each literal a longer clause implies
+	// adds the hyper-binary resolvent (-lit u) to resolvents. Returns false on a
+	// conflict
+	private boolean probe(int lit, List<int[]> resolvents) {
+		stamp++;
+		probeTrail.clear();
+		probeTrail.push(lit);
+		litMarks[lit] = stamp;
+		int binaryHead = 0, longHead = 0;
+		while (longHead < probeTrail.size()) {
+			boolean binary = binaryHead < probeTrail.size();
+			int implied = probeTrail.get(binary ? binaryHead++ : longHead++);
+			IntVec list = occurs[Literal.negate(implied)];
+			for (int k = 0; k < list.size(); k++) {
+				int[] c = clauses.get(list.get(k));
+				if (c == null || (c.length == 2) != binary) {
+					continue;
+				}
+				steps += c.length;
+				int unit = -1;
+				int free = 0;
+				for (int other : c) {
+					if (litMarks[other] == stamp) {
+						free = -1;
+						break;
+					}
+					if (litMarks[Literal.negate(other)] != stamp && values[Literal.var(other)] == 0) {
+						unit = other;
+						free++;
+					}
+				}
+				if (free == 0) {
+					return false;
+				} else if (free != 1) {
+					continue;
+				}
+				litMarks[unit] = stamp;
+				probeTrail.push(unit);
+				if (!binary) {
+					int[] resolvent = { Literal.negate(lit), unit };
+					Arrays.sort(resolvent);
+					resolvents.add(resolvent);
+				}
+			}
+		}
+		return true;
+	}
+
+	// ----------------- Variable elimination ----------------- //
+
+	// Replace the clauses of var by their resolvents, if that does not add clauses
+	// and no resolvent is too long. Returns false if a resolvent is a conflict
+	private boolean eliminate(int var) {
+		if (frozen[var] || eliminated[var] || values[var] != 0) {
+			return true;
+		}
+		int pos = Literal.code(var, false);
+		int[] posClauses = toArray(clean(pos));
+		int[] negClauses = toArray(clean(Literal.negate(pos)));
+		if (posClauses.length * negClauses.length > PRODUCT_LIMIT) {
+			return true;
+		}
+
+		List<int[]> resolvents = new ArrayList<>();
+		int limit = posClauses.length + negClauses.length;
+		for (int p : posClauses) {
+			for (int n : negClauses) {
+				int[] resolvent = resolve(clauses.get(p), clauses.get(n), var);
+				if (resolvent == null) {
+					continue;
+				}
+				if (resolvent.length > RESOLVENT_LIMIT || resolvents.size() == limit) {
+					return true;
+				}
+				resolvents.add(resolvent);
+			}
+		}
+
+		// Save the clauses of the smaller side, then a unit giving var the value
+		// that satisfies the larger side
+		boolean posSmaller = posClauses.length <= negClauses.length;
+		for (int index : posSmaller ? posClauses : negClauses) {
+			pushElimClause(clauses.get(index), posSmaller ? pos : Literal.negate(pos));
+		}
+		pushElimClause(new int[] { posSmaller ? Literal.negate(pos) : pos }, posSmaller ? Literal.negate(pos) : pos);
+
+		if (proof != null) {
+			for (int[] resolvent : resolvents) {
+				proof.add(resolvent);
+			}
+		}
+		for (int index : posClauses) {
+			delete(index);
+		}
+		for (int index : negClauses) {
+			delete(index);
+		}
+		occurs[pos].clear();
+		occurs[Literal.negate(pos)].clear();
+		eliminated[var] = true;
+		eliminatedVars++;
+
+		for (int[] resolvent : resolvents) {
+			if (resolvent.length == 0 || (resolvent.length == 1 && !assign(resolvent[0]))) {
+				return false;
+			} else if (resolvent.length > 1) {
+				queue.push(store(resolvent));
+			}
+		}
+		return true;
+	}
+
+	// Resolvent of p and n on var, sorted, or null if it is a tautology
+	private int[] resolve(int[] p, int[] n, int var) {
+		stamp++;
+		steps += p.length + n.length;
+		int[] merged = new int[p.length + n.length - 2];
+		int size = 0;
+		for (int lit : p) {
+			if (Literal.var(lit) != var) {
+				litMarks[lit] = stamp;
+				merged[size++] = lit;
+			}
+		}
+		for (int lit : n) {
+			if (Literal.var(lit) == var || litMarks[lit] == stamp) {
+				continue;
+			}
+			if (litMarks[Literal.negate(lit)] == stamp) {
+				return null;
+			}
+			merged[size++] = lit;
+		}
+		int[] resolvent = Arrays.copyOf(merged, size);
+		Arrays.sort(resolvent);
+		return resolvent;
+	}
+
+	// Pivot first, then the rest of the clause, then the length
+	private void pushElimClause(int[] lits, int pivot) {
+		elimStack.push(pivot);
+		for (int lit : lits) {
+			if (lit != pivot) {
+				elimStack.push(lit);
+			}
+		}
+		elimStack.push(lits.length);
+	}
+}
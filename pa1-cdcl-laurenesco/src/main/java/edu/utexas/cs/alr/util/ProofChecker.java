@@ -0,0 +1,601 @@
+//
+// Program Name:	ProofChecker.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: Backward checker for DRAT proofs
+//
+
+package edu.utexas.cs.alr.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/////////////////////////
+// PROOF CHECKER CLASS
+/////////////////////////
+
+// Checks that a DRAT proof, text or binary, refutes a CNF formula.
+//
+// The forward pass replays the proof on a Solver's clause store and watches,
+// keeping the level-0 propagation up to date, until propagation conflicts. The
+// backward pass then undoes the proof step by step and checks only the lemmas
+// that the conflict, or a lemma checked before, was found to depend on (the
+// core). A lemma is checked by propagating its negation with the Solver's BCP:
+// a conflict means it is RUP, and walking the trail back from the conflict marks
+// the clauses that were used as core. A lemma that is not RUP must be RAT on
+// its first literal, the pivot.
+//
+// Every clause is watched, binary ones included, so that each assignment has a
+// clause as its reason. Deletions of clauses that are the reason of a level-0
+// assignment are ignored, like drat-trim does.
+public class ProofChecker {
+
+	private final Solver engine = new Solver();
+	private final Formula formula = engine.formula();
+	private final ClauseArena arena = formula.arena;
+	private final AssignmentManager am = engine.assignments();
+
+	// Every clause, original and lemma, for deletion lookups and RAT candidates
+	private final IntVec allClauses = new IntVec();
+	private final Map<Long, IntVec> byHash = new HashMap<>();
+	private final BitSet active = new BitSet();		// By cref, clauses currently in the formula
+	private final BitSet core = new BitSet();		// By cref, clauses some checked step depends on
+
+	// Proof steps in order, 2*cref + 1 for a deletion, and the pivot of each lemma
+	private final IntVec steps = new IntVec();
+	private final Map<Integer, Integer> pivots = new HashMap<>();
+
+	private int[] position = new int[0];		// Trail position of each assigned variable
+	private int positioned = 0;					// Trail prefix position[] is up to date for
+	private boolean[] seen = new boolean[0];
+	private int[] marks = new int[0];			// Literal marks for clause comparison, valid when equal to stamp
+	private int stamp = 0;
+	private final IntVec lits = new IntVec();
+
+	private int lemmas = 0, coreLemmas = 0, ratChecks = 0;
+	private String failure;
+
+	// The formula the proof refutes, as an Expr or its text
+	public ProofChecker(Object f) {
+		engine.add(f);
+		for (int i = 0; i < formula.clauses.size(); i++) {
+			register(formula.clauses.get(i));
+		}
+	}
+
+	// Check the proof in the given file. Returns true if it refutes the formula,
+	// otherwise getFailure() says why not
+	public boolean check(Path proof) throws IOException {
+		try (FileChannel channel = FileChannel.open(proof, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Proof too large to map: " + channel.size() + " bytes");
+			}
+			MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			int conflict = forward(isBinary(bytes) ? new BinaryReader(bytes) : new TextReader(bytes));
+			if (failure != null) {
+				return false;
+			}
+			return backward(conflict);
+		}
+	}
+
+	public String getFailure() {
+		return failure;
+	}
+
+	// Lemmas the proof adds, before the conflict
+	public int getLemmaCount() {
+		return lemmas;
+	}
+
+	// Lemmas the refutation needed, the only ones that were checked
+	public int getCoreLemmaCount() {
+		return coreLemmas;
+	}
+
+	// Lemmas that were not RUP and had to be checked as RAT
+	public int getRatCount() {
+		return ratChecks;
+	}
+
+	// ----------------- Forward pass ----------------- //
+
+	// Add the original clauses, then apply the proof until level-0 propagation
+	// conflicts. Returns the conflicting clause, NONE if there is none
+	private int forward(ProofReader reader) throws IOException {
+		for (int i = 0; i < allClauses.size(); i++) {
+			int conflict = attach(allClauses.get(i));
+			if (conflict == ClauseArena.NONE) {
+				conflict = propagate();
+			}
+			if (conflict != ClauseArena.NONE) {
+				return conflict;
+			}
+		}
+
+		while (reader.next(lits)) {
+			if (reader.isDeletion()) {
+				int cref = find(lits);
+				if (cref == ClauseArena.NONE) {
+					failure = "Deleted clause is not in the formula: " + describe(lits);
+					return ClauseArena.NONE;
+				}
+				if (!isReason(cref)) {
+					detach(cref);
+					steps.push(2 * cref + 1);
+				}
+				continue;
+			}
+
+			int cref = arena.alloc(lits, true);
+			register(cref);
+			pivots.put(cref, lits.size() > 0 ? lits.get(0) : -1);
+			steps.push(2 * cref);
+			lemmas++;
+			int conflict = lits.size() == 0 ? cref : attach(cref);
+			if (conflict == ClauseArena.NONE) {
+				conflict = propagate();
+			}
+			if (conflict != ClauseArena.NONE) {
+				return conflict;
+			}
+		}
+		failure = "The proof does not derive a conflict";
+		return ClauseArena.NONE;
+	}
+
+	private void register(int cref) {
+		allClauses.push(cref);
+		active.set(cref);
+		byHash.computeIfAbsent(hash(cref), h -> new IntVec()).push(cref);
+	}
+
+	// Same value for every order of the same literals
+	private long hash(int cref) {
+		long sum = 0, product = 1;
+		for (int k = 0; k < arena.size(cref); k++) {
+			int lit = arena.lit(cref, k);
+			sum += lit;
+			product *= 2L * lit + 1;
+		}
+		return sum * 31 + product;
+	}
+
+	private long hash(IntVec clause) {
+		long sum = 0, product = 1;
+		for (int k = 0; k < clause.size(); k++) {
+			sum += clause.get(k);
+			product *= 2L * clause.get(k) + 1;
+		}
+		return sum * 31 + product;
+	}
+
+	// An active clause with the same literals, or NONE
+	private int find(IntVec clause) {
+		IntVec candidates = byHash.get(hash(clause));
+		if (candidates == null) {
+			return ClauseArena.NONE;
+		}
+		for (int k = 0; k < candidates.size(); k++) {
+			int cref = candidates.get(k);
+			if (active.get(cref) && sameLiterals(cref, clause)) {
+				return cref;
+			}
+		}
+		return ClauseArena.NONE;
+	}
+
+	private boolean sameLiterals(int cref, IntVec clause) {
+		growMarks();
+		stamp++;
+		for (int k = 0; k < clause.size(); k++) {
+			marks[clause.get(k)] = stamp;
+		}
+		for (int k = 0; k < arena.size(cref); k++) {
+			if (marks[arena.lit(cref, k)] != stamp) {
+				return false;
+			}
+		}
+		stamp++;
+		for (int k = 0; k < arena.size(cref); k++) {
+			marks[arena.lit(cref, k)] = stamp;
+		}
+		for (int k = 0; k < clause.size(); k++) {
+			if (marks[clause.get(k)] != stamp) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// ----------------- Backward pass ----------------- //
+
+	// Undo the proof from the conflict back to the start, checking the core lemmas
+	private boolean backward(int conflict) {
+		markConflict(conflict);
+		for (int i = steps.size() - 1; i >= 0; i--) {
+			int cref = steps.get(i) >>> 1;
+			if ((steps.get(i) & 1) == 1) {
+				// Deleted here, so it was there for everything before
+				int reconflict = attach(cref);
+				if (reconflict == ClauseArena.NONE) {
+					reconflict = propagate();
+				}
+				if (reconflict != ClauseArena.NONE) {
+					failure = "Propagation conflicts before the end of the proof";
+					return false;
+				}
+				continue;
+			}
+
+			detach(cref);
+			if (core.get(cref)) {
+				coreLemmas++;
+				if (!checkLemma(cref)) {
+					failure = "Lemma is neither RUP nor RAT: " + describe(cref);
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	// RUP on the lemma itself, otherwise RAT on its pivot: every resolvent with
+	// an active clause holding the negated pivot must be RUP
+	private boolean checkLemma(int cref) {
+		lits.clear();
+		for (int k = 0; k < arena.size(cref); k++) {
+			lits.push(arena.lit(cref, k));
+		}
+		if (isRUP(lits)) {
+			return true;
+		}
+		int pivot = pivots.get(cref);
+		if (pivot < 0) {
+			return false;
+		}
+		ratChecks++;
+		IntVec resolvent = new IntVec();
+		for (int i = 0; i < allClauses.size(); i++) {
+			int other = allClauses.get(i);
+			if (!active.get(other) || !contains(other, Literal.negate(pivot))) {
+				continue;
+			}
+			resolvent.clear();
+			for (int k = 0; k < lits.size(); k++) {
+				resolvent.push(lits.get(k));
+			}
+			for (int k = 0; k < arena.size(other); k++) {
+				if (arena.lit(other, k) != Literal.negate(pivot)) {
+					resolvent.push(arena.lit(other, k));
+				}
+			}
+			core.set(other);
+			if (!isRUP(resolvent)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Assume the clause false and propagate. On a conflict the clauses it used
+	// are marked core
+	private boolean isRUP(IntVec clause) {
+		am.newDecisionLevel();
+		int conflict = ClauseArena.NONE;
+		for (int k = 0; k < clause.size() && conflict == ClauseArena.NONE; k++) {
+			int lit = clause.get(k);
+			byte value = am.litValue(lit);
+			if (value == AssignmentManager.TRUE) {
+				// Already true, its reasons are what makes the clause hold
+				markFrom(Literal.var(lit));
+				am.backtrack(0);
+				return true;
+			} else if (value == AssignmentManager.UNASSIGNED) {
+				am.assign(Literal.negate(lit), ClauseArena.NONE);
+			}
+		}
+		conflict = engine.propagate();
+		if (conflict != ClauseArena.NONE) {
+			markConflict(conflict);
+		}
+		am.backtrack(0);
+		return conflict != ClauseArena.NONE;
+	}
+
+	// Mark the conflicting clause and the reasons of all its false literals
+	private void markConflict(int conflict) {
+		if (conflict == ClauseArena.NONE) {
+			return;
+		}
+		core.set(conflict);
+		syncPositions();
+		int pending = 0;
+		for (int k = 0; k < arena.size(conflict); k++) {
+			pending += see(Literal.var(arena.lit(conflict, k)));
+		}
+		markSeen(pending);
+	}
+
+	private void markFrom(int var) {
+		syncPositions();
+		markSeen(see(var));
+	}
+
+	private int see(int var) {
+		if (seen[var]) {
+			return 0;
+		}
+		seen[var] = true;
+		return 1;
+	}
+
+	// Walk the trail backwards, marking the reason of each seen variable, until
+	// no seen variable is left
+	private void markSeen(int pending) {
+		for (int i = am.trailSize - 1; i >= 0 && pending > 0; i--) {
+			int var = Literal.var(am.trail[i]);
+			if (!seen[var]) {
+				continue;
+			}
+			seen[var] = false;
+			pending--;
+			int reason = am.getReason(var);
+			if (reason == ClauseArena.NONE) {
+				continue;
+			}
+			core.set(reason);
+			for (int k = 0; k < arena.size(reason); k++) {
+				int other = Literal.var(arena.lit(reason, k));
+				if (other != var) {
+					pending += see(other);
+				}
+			}
+		}
+	}
+
+	// ----------------- Clause attachment at level 0 ----------------- //
+
+	// Watch the clause with two literals that are not false if it has them,
+	// otherwise with the false ones assigned last, so that unassigning the end
+	// of the trail keeps the watches right. A clause that is unit assigns its
+	// literal. Returns the clause if all its literals are false, otherwise NONE
+	private int attach(int cref) {
+		active.set(cref);
+		int size = arena.size(cref);
+		syncPositions();
+		// Best watch candidates first: true or unassigned, then false by trail position
+		for (int slot = 0; slot < Math.min(2, size); slot++) {
+			int best = slot;
+			for (int k = slot + 1; k < size; k++) {
+				if (betterWatch(arena.lit(cref, k), arena.lit(cref, best))) {
+					best = k;
+				}
+			}
+			arena.swap(cref, slot, best);
+		}
+		if (size >= 2) {
+			formula.watchClause(cref);
+		}
+
+		int first = arena.lit(cref, 0);
+		byte value = am.litValue(first);
+		if (value == AssignmentManager.FALSE) {
+			return cref;
+		}
+		boolean unit = size == 1 || am.litValue(arena.lit(cref, 1)) == AssignmentManager.FALSE;
+		if (unit && value == AssignmentManager.UNASSIGNED) {
+			am.assign(first, cref);
+		}
+		return ClauseArena.NONE;
+	}
+
+	private boolean betterWatch(int a, int b) {
+		boolean aFalse = am.litValue(a) == AssignmentManager.FALSE;
+		boolean bFalse = am.litValue(b) == AssignmentManager.FALSE;
+		if (aFalse != bFalse) {
+			return bFalse;
+		}
+		return aFalse && position[Literal.var(a)] > position[Literal.var(b)];
+	}
+
+	// Stop watching the clause. If it is the reason of a level-0 assignment,
+	// that part of the trail is undone and propagated again without it
+	private void detach(int cref) {
+		active.clear(cref);
+		int size = arena.size(cref);
+		for (int slot = 0; slot < Math.min(2, size); slot++) {
+			IntVec watchers = formula.watches[arena.lit(cref, slot)];
+			for (int k = 0; k < watchers.size(); k += 2) {
+				if (watchers.get(k) == cref) {
+					watchers.set(k, watchers.get(watchers.size() - 2));
+					watchers.set(k + 1, watchers.get(watchers.size() - 1));
+					watchers.shrink(watchers.size() - 2);
+					break;
+				}
+			}
+		}
+		if (isReason(cref)) {
+			syncPositions();
+			am.unassignFrom(position[Literal.var(arena.lit(cref, 0))]);
+			positioned = Math.min(positioned, am.trailSize);
+			propagate();
+		}
+	}
+
+	private boolean isReason(int cref) {
+		if (arena.size(cref) == 0) {
+			return false;
+		}
+		int first = arena.lit(cref, 0);
+		return am.litValue(first) == AssignmentManager.TRUE && am.getReason(Literal.var(first)) == cref;
+	}
+
+	private int propagate() {
+		int conflict = engine.propagate();
+		syncPositions();
+		return conflict;
+	}
+
+	private void syncPositions() {
+		if (position.length < formula.numVars()) {
+			position = Arrays.copyOf(position, formula.numVars());
+			seen = Arrays.copyOf(seen, formula.numVars());
+		}
+		for (; positioned < am.trailSize; positioned++) {
+			position[Literal.var(am.trail[positioned])] = positioned;
+		}
+	}
+
+	private void growMarks() {
+		if (marks.length < 2 * formula.numVars()) {
+			marks = Arrays.copyOf(marks, 2 * formula.numVars());
+		}
+	}
+
+	private boolean contains(int cref, int lit) {
+		for (int k = 0; k < arena.size(cref); k++) {
+			if (arena.lit(cref, k) == lit) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private String describe(int cref) {
+		IntVec clause = new IntVec();
+		for (int k = 0; k < arena.size(cref); k++) {
+			clause.push(arena.lit(cref, k));
+		}
+		return describe(clause);
+	}
+
+	private String describe(IntVec clause) {
+		StringBuilder b = new StringBuilder();
+		for (int k = 0; k < clause.size(); k++) {
+			b.append(engine.toId(clause.get(k))).append(' ');
+		}
+		return b.append('0').toString();
+	}
+
+	// ----------------- Proof readers ----------------- //
+
+	// Binary proofs start with 'a' or 'd' followed by bytes that text never has
+	private static boolean isBinary(MappedByteBuffer bytes) {
+		for (int i = 0; i < Math.min(bytes.limit(), 16); i++) {
+			int b = bytes.get(i) & 0xFF;
+			boolean text = b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '-' || b == 'd' || b == 'c'
+					|| (b >= '0' && b <= '9');
+			if (!text) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private abstract class ProofReader {
+		final MappedByteBuffer bytes;
+		boolean deletion;
+
+		ProofReader(MappedByteBuffer bytes) {
+			this.bytes = bytes;
+		}
+
+		// Read the next step into clause as dense literals. Returns false at the end
+		abstract boolean next(IntVec clause) throws IOException;
+
+		boolean isDeletion() {
+			return deletion;
+		}
+
+		int literal(long id) {
+			return engine.literal(id);
+		}
+	}
+
+	private class TextReader extends ProofReader {
+		TextReader(MappedByteBuffer bytes) {
+			super(bytes);
+		}
+
+		@Override
+		boolean next(IntVec clause) throws IOException {
+			clause.clear();
+			deletion = false;
+			boolean started = false;
+			while (bytes.hasRemaining()) {
+				int b = bytes.get();
+				if (b == 'c') {
+					while (bytes.hasRemaining() && bytes.get() != '\n') {
+						// Comment, skipped to the end of the line
+					}
+				} else if (b == 'd') {
+					deletion = true;
+					started = true;
+				} else if (b == '-' || (b >= '0' && b <= '9')) {
+					started = true;
+					boolean negative = b == '-';
+					long value = negative ? 0 : b - '0';
+					while (bytes.hasRemaining()) {
+						int digit = bytes.get(bytes.position());
+						if (digit < '0' || digit > '9') {
+							break;
+						}
+						value = value * 10 + (bytes.get() - '0');
+					}
+					if (value == 0) {
+						return true;
+					}
+					clause.push(literal(negative ? -value : value));
+				} else if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+					throw new IOException("Unexpected character '" + (char) b + "' in proof");
+				}
+			}
+			if (started) {
+				throw new IOException("Proof ends inside a clause");
+			}
+			return false;
+		}
+	}
+
+	private class BinaryReader extends ProofReader {
+		BinaryReader(MappedByteBuffer bytes) {
+			super(bytes);
+		}
+
+		@Override
+		boolean next(IntVec clause) throws IOException {
+			clause.clear();
+			if (!bytes.hasRemaining()) {
+				return false;
+			}
+			int kind = bytes.get();
+			if (kind != 'a' && kind != 'd') {
+				throw new IOException("Unexpected step byte " + kind + " in binary proof");
+			}
+			deletion = kind == 'd';
+			while (true) {
+				long code = 0;
+				int shift = 0;
+				int b;
+				do {
+					if (!bytes.hasRemaining()) {
+						throw new IOException("Proof ends inside a clause");
+					}
+					b = bytes.get() & 0xFF;
+					code |= (long) (b & 0x7F) << shift;
+					shift += 7;
+				} while ((b & 0x80) != 0);
+				if (code == 0) {
+					return true;
+				}
+				long id = code >>> 1;
+				clause.push(literal((code & 1) == 1 ? -id : id));
+			}
+		}
+	}
+}
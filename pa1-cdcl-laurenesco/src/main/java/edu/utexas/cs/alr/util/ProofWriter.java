@@ -0,0 +1,205 @@
+//
+// Program Name:	ProofWriter.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: DRAT proof output of the SAT solver
+//
+
+package edu.utexas.cs.alr.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+///////////////////////
+// PROOF WRITER CLASS
+///////////////////////
+
+// Streams the clauses a Solver adds and deletes as a DRAT proof, in the text
+// format ("1 -2 0", "d 1 -2 0") or the binary one ('a' or 'd', then each literal
+// 2*var+sign as a 7-bit varint, then 0). Variables are the VarExpr ids.
+//
+// The solver thread only encodes into a buffer. Full buffers go to a background
+// thread that writes them to the FileChannel and hands them back, so the search
+// waits on the disk only when it gets BUFFERS buffers ahead of it.
+public class ProofWriter implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int BUFFERS = 4;
+	private static final int MAX_LITERAL_BYTES = 21;		// "-9223372036854775807 " in text, fewer in binary
+	private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+	private final FileChannel channel;
+	private final boolean binary;
+	private final BlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<>(BUFFERS + 1);
+	private final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(BUFFERS);
+	private final Thread writer;
+	private volatile IOException failure;
+	private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private List<Long> varIds;			// VarExpr id of each dense variable, set by the solver
+	private boolean closed = false;
+
+	public ProofWriter(Path path, boolean binary) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		this.binary = binary;
+		for (int k = 1; k < BUFFERS; k++) {
+			free.add(ByteBuffer.allocate(BUFFER_SIZE));
+		}
+		writer = new Thread(this::drain, "proof-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	void setVarIds(List<Long> varIds) {
+		this.varIds = varIds;
+	}
+
+	// ----------------- Proof steps, on dense literal codes ----------------- //
+
+	void add(IntVec lits) {
+		begin('a');
+		for (int k = 0; k < lits.size(); k++) {
+			literal(lits.get(k));
+		}
+		end();
+	}
+
+	void add(int... lits) {
+		begin('a');
+		for (int lit : lits) {
+			literal(lit);
+		}
+		end();
+	}
+
+	void delete(int... lits) {
+		begin('d');
+		for (int lit : lits) {
+			literal(lit);
+		}
+		end();
+	}
+
+	void delete(ClauseArena arena, int cref) {
+		begin('d');
+		for (int k = 0; k < arena.size(cref); k++) {
+			literal(arena.lit(cref, k));
+		}
+		end();
+	}
+
+	private void begin(char kind) {
+		reserve(2);
+		if (binary) {
+			buffer.put((byte) kind);
+		} else if (kind == 'd') {
+			buffer.put((byte) 'd').put((byte) ' ');
+		}
+	}
+
+	private void literal(int lit) {
+		reserve(MAX_LITERAL_BYTES);
+		long id = varIds.get(Literal.var(lit));
+		boolean negated = (lit & 1) == 1;
+		if (binary) {
+			long code = 2 * id + (negated ? 1 : 0);
+			while ((code & ~0x7FL) != 0) {
+				buffer.put((byte) ((code & 0x7F) | 0x80));
+				code >>>= 7;
+			}
+			buffer.put((byte) code);
+		} else {
+			if (negated) {
+				buffer.put((byte) '-');
+			}
+			putDigits(id);
+			buffer.put((byte) ' ');
+		}
+	}
+
+	private void end() {
+		reserve(2);
+		if (binary) {
+			buffer.put((byte) 0);
+		} else {
+			buffer.put((byte) '0').put((byte) '\n');
+		}
+	}
+
+	private void putDigits(long value) {
+		if (value >= 10) {
+			putDigits(value / 10);
+		}
+		buffer.put((byte) ('0' + value % 10));
+	}
+
+	// ----------------- Buffer hand-off ----------------- //
+
+	// Make room for bytes more, passing the buffer to the writer thread if needed
+	private void reserve(int bytes) {
+		if (buffer.remaining() >= bytes) {
+			return;
+		}
+		buffer.flip();
+		try {
+			full.put(buffer);
+			buffer = free.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while writing the proof", e);
+		}
+	}
+
+	// Writer thread: write the full buffers in order and recycle them. After a
+	// failure the buffers are still recycled so the solver never blocks
+	private void drain() {
+		try {
+			while (true) {
+				ByteBuffer next = full.take();
+				if (next == END) {
+					return;
+				}
+				try {
+					while (failure == null && next.hasRemaining()) {
+						channel.write(next);
+					}
+				} catch (IOException e) {
+					failure = e;
+				}
+				next.clear();
+				free.put(next);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Write what is left and close the file. Throws the first write error, if any
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		buffer.flip();
+		try {
+			full.put(buffer);
+			full.put(END);
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while closing the proof", e);
+		} finally {
+			channel.close();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+}
@@ -0,0 +1,157 @@
+//
+// Program Name:	RestartScheduler.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: Policies deciding when the SAT solver restarts
+//
+
+package edu.utexas.cs.alr.util;
+
+///////////////////////////
+// RESTART SCHEDULER CLASS
+///////////////////////////
+
+// Told about every conflict, and asked before every decision whether the
+// solver should give up its current decisions and start over
+abstract class RestartScheduler {
+
+	// Called once per conflict with the LBD of the learned clause
+	abstract void onConflict(int lbd);
+
+	abstract boolean shouldRestart();
+
+	// Called once the solver has restarted
+	abstract void onRestart();
+
+	static RestartScheduler create(SolverOptions options) {
+		switch (options.restarts) {
+			case LUBY:
+				return new LubyRestarts(options.lubyUnit);
+			case GLUCOSE:
+				return new GlucoseRestarts();
+			default:
+				return new NoRestarts();
+		}
+	}
+}
+
+/////////////////////////
+// NO RESTARTS CLASS
+/////////////////////////
+
+class NoRestarts extends RestartScheduler {
+
+	@Override
+	void onConflict(int lbd) { }
+
+	@Override
+	boolean shouldRestart() { return false; }
+
+	@Override
+	void onRestart() { }
+}
+
+/////////////////////////
+// LUBY RESTARTS CLASS
+/////////////////////////
+
+// Restarts after unit * luby(i) conflicts, where luby is 1 1 2 1 1 2 4 1 1 2 ...
+class LubyRestarts extends RestartScheduler {
+	private final int unit;
+	private int restarts = 0;
+	private long conflicts = 0;			// Conflicts since the last restart
+	private long limit;
+
+	LubyRestarts(int unit) {
+		this.unit = unit;
+		this.limit = unit * luby(0);
+	}
+
+	@Override
+	void onConflict(int lbd) {
+		conflicts++;
+	}
+
+	@Override
+	boolean shouldRestart() {
+		return conflicts >= limit;
+	}
+
+	@Override
+	void onRestart() {
+		restarts++;
+		conflicts = 0;
+		limit = unit * luby(restarts);
+	}
+
+	// The i-th element (from 0) of the Luby sequence
+	static long luby(int i) {
+		// Find the finite subsequence that contains index i, and its size
+		int size = 1, seq = 0;
+		while (size < i + 1) {
+			seq++;
+			size = 2 * size + 1;
+		}
+		while (size - 1 != i) {
+			size = (size - 1) >> 1;
+			seq--;
+			i = i % size;
+		}
+		return 1L << seq;
+	}
+}
+
+/////////////////////////
+// GLUCOSE RESTARTS CLASS
+/////////////////////////
+
+// Restarts when recent learned clauses are much worse than usual, comparing a
+// fast and a slow exponential moving average of the LBD (as in Glucose/CaDiCaL)
+class GlucoseRestarts extends RestartScheduler {
+	private static final double FAST_ALPHA = 1.0 / 32;
+	private static final double SLOW_ALPHA = 1.0 / 100000;
+	private static final double MARGIN = 1.1;
+	private static final int MIN_CONFLICTS = 2;		// Conflicts between two restarts at least
+
+	private final Ema fast = new Ema(FAST_ALPHA);
+	private final Ema slow = new Ema(SLOW_ALPHA);
+	private long conflicts = 0;			// Conflicts since the last restart
+
+	@Override
+	void onConflict(int lbd) {
+		conflicts++;
+		fast.update(lbd);
+		slow.update(lbd);
+	}
+
+	@Override
+	boolean shouldRestart() {
+		return conflicts >= MIN_CONFLICTS && fast.value() > MARGIN * slow.value();
+	}
+
+	@Override
+	void onRestart() {
+		conflicts = 0;
+	}
+
+	// Exponential moving average with bias correction, so it is usable from the
+	// first update instead of creeping up from zero
+	static class Ema {
+		private final double alpha;
+		private double value = 0;
+		private double beta = 1;		// (1 - alpha)^updates
+
+		Ema(double alpha) {
+			this.alpha = alpha;
+		}
+
+		void update(double x) {
+			value += alpha * (x - value);
+			beta *= 1 - alpha;
+		}
+
+		double value() {
+			return beta == 1 ? 0 : value / (1 - beta);
+		}
+	}
+}
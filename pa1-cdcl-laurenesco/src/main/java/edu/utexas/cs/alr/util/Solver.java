@@ -0,0 +1,1195 @@
+//
+// Program Name:	Solver.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: Incremental CDCL solver
+//
+
+package edu.utexas.cs.alr.util;
+
+import edu.utexas.cs.alr.ast.Expr;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
+
+///////////////////////
+// SOLVER CLASS
+///////////////////////
+
+// A CDCL solver that owns all of its state, so independent solves can run one
+// after another or on different threads at the same time. An instance itself
+// is not thread-safe, use one per thread.
+//
+// The solver is incremental: clauses can be added between calls to solve, and
+// each call can assume some literals true. Learned clauses, variable activities
+// and saved phases carry over from one call to the next. Literals are given as
+// signed VarExpr ids, +id for the variable and -id for its negation.
+public class Solver {
+
+	private static final int BINARY_CONFLICT = -2;			// conflictRef of a falsified binary clause
+	private static final int NO_ASSUMPTION = -1;			// placeAssumptions: every assumption holds
+	private static final int FAILED_ASSUMPTION = -2;		// placeAssumptions: an assumption is false
+	private static final int BLOCK_STOP = 0;				// blockModel: the enumeration stops at this model
+	private static final int BLOCK_CONFLICT = 1;			// blockModel: the blocking clause is the conflict
+	private static final int BLOCK_UNIT = 2;				// blockModel: the blocking clause is a level-0 unit
+
+	// Learned clause database reduction
+	private static final int REDUCE_FIRST = 2000;			// Conflicts before the first reduction
+	private static final int REDUCE_INC = 300;				// Growth of the interval after each reduction
+	private static final int TIER2_UNUSED = 30000;			// Conflicts a tier-2 clause may go unused before demotion
+
+	// Learned clauses handed to other portfolio workers
+	private static final int SHARE_MAX_LBD = ClauseArena.CORE_LBD;
+	private static final int SHARE_MAX_SIZE = 30;
+	private static final int IMPORT_INTERVAL = 500;			// Conflicts between polls of the exchange
+
+	private final SolverOptions options;
+	private final Random random;
+	private final SolverStats stats = new SolverStats();
+	private long[] model;				// Satisfying assignment of the last SAT call (+id true, -id false), null otherwise
+	private long[] failedAssumptions = new long[0];		// Assumptions that made the last call UNSAT
+
+	private final Formula formula = new Formula();
+	private final ClauseArena arena = formula.arena;
+	private final AssignmentManager am;
+	private final RestartScheduler restarts;
+	private int attached = 0;			// Clauses of the formula already watched
+	private boolean ok = true;			// False once the clauses are UNSAT without any assumption
+	private final IntVec assumptions = new IntVec();
+
+	// Preprocessing, done once before the first search when options.preprocess is set
+	private boolean preprocessed = false;
+	private boolean[] frozen = new boolean[0];			// Variables preprocessing must keep
+	private boolean[] eliminated = new boolean[0];		// Variables it resolved away
+	private IntVec elimStack = new IntVec();			// Their clauses, for extending the model
+	private volatile boolean interrupted = false;
+	private ProofWriter proof;			// DRAT output, null unless setProof was called
+	private Supplier<IntVec> blocker;	// Blocking clause for each model while enumerating, see enumerate
+
+	// Clause sharing with other portfolio workers, unused when exchange is null
+	private ClauseExchange exchange;
+	private int workerId;
+	private final long[] exchangeCursor = new long[1];
+	private long nextImport = IMPORT_INTERVAL;
+
+	private int conflictRef = ClauseArena.NONE;			// Clause BCP found falsified
+	private final int[] conflictBinary = new int[2];	// Its two literals
+	private long nextReduce = REDUCE_FIRST;
+	private long reduceInterval = REDUCE_FIRST;
+	private long nextVivify;
+
+	// Scratch space for conflict analysis, reused across conflicts
+	private boolean[] seen = new boolean[0];				// Variables already visited by the current analysis
+	private final IntVec learnedBuffer = new IntVec();		// Literals of the clause being learned
+	private final IntVec analyzeStack = new IntVec();		// Pending literals of the redundancy check
+	private final IntVec analyzeToClear = new IntVec();		// Variables marked seen by the redundancy check
+	private final IntVec scratch = new IntVec();
+	private final IntVec replaced = new IntVec();			// Clauses a vivification round shortened
+	private final IntVec candidates = new IntVec();			// Clauses a reduction or vivification round considers
+
+	public Solver() {
+		this(new SolverOptions());
+	}
+
+	public Solver(SolverOptions options) {
+		this.options = options;
+		this.nextVivify = options.vivifyInterval;
+		this.random = new Random(options.seed);
+		this.am = new AssignmentManager(0, options.defaultPhase);
+		this.restarts = RestartScheduler.create(options);
+	}
+
+	// Add the clauses of a CNF formula. Expressions are loaded directly,
+	// anything else is parsed from its text
+	public void add(Object f) {
+		if (f instanceof Expr) {
+			SatUtil.loadCNF((Expr) f, formula);
+		} else {
+			SatUtil.parseCNF(f.toString(), formula);
+		}
+		growVars();
+	}
+
+	// Add the clauses of a CNF expression, each one only in force while guard,
+	// a signed VarExpr id, is assumed true
+	public void add(Expr cnf, long guard) {
+		SatUtil.loadCNF(cnf, formula, toLiteral(guard));
+		growVars();
+	}
+
+	// Add one clause, given as signed VarExpr ids
+	public void addClause(long... lits) {
+		scratch.clear();
+		for (long lit : lits) {
+			scratch.push(toLiteral(lit));
+		}
+		formula.addClause(scratch);
+		growVars();
+	}
+
+	// Add the clauses of f and decide satisfiability of everything added so far
+	public boolean solve(Object f) {
+		add(f);
+		return solve();
+	}
+
+	public boolean solve() {
+		return solve(new long[0]);
+	}
+
+	// Decide satisfiability of the clauses added so far with the given literals
+	// assumed true. If UNSAT, getFailedAssumptions() tells which of them are to
+	// blame; it is empty if the clauses are UNSAT on their own.
+	public boolean solve(long[] assumed) {
+		assumptions.clear();
+		for (long lit : assumed) {
+			assumptions.push(toLiteral(lit));
+		}
+		growVars();
+		for (int k = 0; k < assumptions.size(); k++) {
+			frozen[Literal.var(assumptions.get(k))] = true;
+		}
+		model = null;
+		failedAssumptions = new long[0];
+
+		try {
+			return ok && search();
+		} finally {
+			am.backtrack(0);
+		}
+	}
+
+	// Enumerate the models of the clauses added so far in one search. At each
+	// model blocker gives the clause that excludes it, as dense literals that are
+	// all false, or null to stop there. The blocking clause is then the conflict,
+	// so the search backjumps from the model instead of starting over. Returns
+	// true if blocker stopped at a model, which getModel() holds, and false once
+	// no model is left. Blocking clauses stay in the formula
+	boolean enumerate(Supplier<IntVec> blocker) {
+		if (proof != null) {
+			throw new IllegalStateException("Blocking clauses do not follow from the formula, they cannot go in a proof");
+		}
+		this.blocker = blocker;
+		try {
+			return solve();
+		} finally {
+			this.blocker = null;
+		}
+	}
+
+	// Keep preprocessing from eliminating these variables, given as VarExpr ids, so
+	// they can still be used in assumptions and clauses added after the first solve
+	public void freeze(long... ids) {
+		for (long id : ids) {
+			int var = Literal.var(toLiteral(id));
+			growVars();
+			frozen[var] = true;
+		}
+	}
+
+	// Write every clause this solver derives or deletes to proof, so that an
+	// UNSAT answer can be checked. Clauses imported from other workers are not
+	// derivable, so a proof is only valid for a solver that does not share
+	public void setProof(ProofWriter proof) {
+		this.proof = proof;
+		proof.setVarIds(formula.varIds);
+	}
+
+	// Make the running solve, or the next one if none is running, give up with a
+	// CancellationException. Can be called from any thread.
+	public void interrupt() {
+		interrupted = true;
+	}
+
+	// Publish good learned clauses to the exchange and import the ones other
+	// workers publish, as worker number id
+	void share(ClauseExchange exchange, int id) {
+		this.exchange = exchange;
+		this.workerId = id;
+	}
+
+	// ---------------- Proof checking, used by ProofChecker ---------------- //
+
+	Formula formula() {
+		return formula;
+	}
+
+	AssignmentManager assignments() {
+		return am;
+	}
+
+	// Dense literal of a signed VarExpr id, making room for a new variable
+	int literal(long id) {
+		int lit = toLiteral(id);
+		growVars();
+		return lit;
+	}
+
+	// Propagate at the current level. The binary implication lists are not used
+	// here, every clause must be watched. Returns the falsified clause, or NONE
+	int propagate() {
+		if (!BCP()) {
+			return ClauseArena.NONE;
+		}
+		int conflict = conflictRef;
+		conflictRef = ClauseArena.NONE;
+		return conflict;
+	}
+
+	// ---------------- Lookahead, used by the cuber ---------------- //
+
+	// Attach the clauses and propagate at level 0. Returns false if that is a conflict
+	boolean propagateRoot() {
+		if (!ok || !preprocessOnce() || !attachClauses() || BCP()) {
+			refuted();
+		}
+		return ok;
+	}
+
+	// Decide lit on a new level and propagate it. Returns the number of literals
+	// it implied, or -1 on a conflict. The level stays until pop()
+	int push(int lit) {
+		int before = am.trailSize;
+		am.newDecisionLevel();
+		am.assign(lit, ClauseArena.NONE);
+		return BCP() ? -1 : am.trailSize - before - 1;
+	}
+
+	void pop() {
+		am.backtrack(am.decisionLevel() - 1);
+	}
+
+	// Literals implied by lit at the current level, or -1 if it fails
+	int probe(int lit) {
+		int implied = push(lit);
+		pop();
+		return implied;
+	}
+
+	int numVars() {
+		return formula.numVars();
+	}
+
+	boolean isEliminated(int var) {
+		return eliminated[var];
+	}
+
+	byte litValue(int lit) {
+		return am.litValue(lit);
+	}
+
+	// How many clauses each literal appears in, by literal code
+	int[] occurrences() {
+		int[] count = new int[2 * formula.numVars()];
+		for (int i = 0; i < formula.clauses.size(); i++) {
+			int cref = formula.clauses.get(i);
+			for (int k = 0; k < arena.size(cref); k++) {
+				count[arena.lit(cref, k)]++;
+			}
+		}
+		return count;
+	}
+
+	// Counters since the solver was created
+	public SolverStats getStats() {
+		return stats;
+	}
+
+	// Satisfying assignment of the last solve as signed VarExpr ids, or null if it was UNSAT
+	public long[] getModel() {
+		return model;
+	}
+
+	// Subset of the assumptions of the last solve that is already UNSAT together
+	// with the clauses, as signed VarExpr ids
+	public long[] getFailedAssumptions() {
+		return failedAssumptions;
+	}
+
+	// True if lit, a signed VarExpr id, is assigned true at level 0, so it holds
+	// in every model of the clauses added so far. An id the solver has not seen
+	// is not fixed, and asking does not add it
+	public boolean isFixed(long lit) {
+		Integer var = formula.varIndex.get(Math.abs(lit));
+		if (var == null || var >= am.numVars()) {
+			return false;
+		}
+		int l = Literal.code(var, lit < 0);
+		return am.litValue(l) == AssignmentManager.TRUE && am.getLevel(var) == 0;
+	}
+
+	private int toLiteral(long lit) {
+		if (lit == 0) {
+			throw new IllegalArgumentException("Literal 0 does not name a variable");
+		}
+		int var = formula.varOf(Math.abs(lit));
+		if (var < eliminated.length && eliminated[var]) {
+			throw new IllegalArgumentException("Variable x" + Math.abs(lit)
+					+ " was eliminated by preprocessing, freeze it before the first solve");
+		}
+		return Literal.code(var, lit < 0);
+	}
+
+	long toId(int lit) {
+		long id = formula.varIds.get(Literal.var(lit));
+		return (lit & 1) == 0 ? id : -id;
+	}
+
+	// Size the per-variable state for the variables the formula gained
+	private void growVars() {
+		int numVars = formula.numVars();
+		formula.growWatches();
+		am.growTo(numVars);
+		if (seen.length < numVars) {
+			seen = Arrays.copyOf(seen, numVars);
+			frozen = Arrays.copyOf(frozen, numVars);
+			eliminated = Arrays.copyOf(eliminated, numVars);
+		}
+	}
+
+	private boolean search() {
+		conflictRef = ClauseArena.NONE;
+
+		// Watch the new clauses, unit clauses go straight onto the trail
+		if (!preprocessOnce() || !attachClauses()) {
+			refuted();
+			return false;
+		}
+
+		boolean blocked = false;		// The last model's blocking clause is the conflict
+		while (true) {
+			// Perform BCP
+			boolean conflict = blocked || BCP();
+			blocked = false;
+			if (conflict) {
+				// Return UNSAT if conflict at root node, no assumption is involved
+				if (am.decisionLevel() == 0) {
+					refuted();
+					return false;
+				}
+
+				if (interrupted) {
+					interrupted = false;
+					throw new CancellationException("Solve interrupted");
+				}
+
+				// Otherwise analyze conflict
+				stats.conflicts++;
+				ConflictData conflictData = analyzeConflict();
+				am.order.decayActivity();
+				restarts.onConflict(conflictData.lbd);
+				am.backtrack(conflictData.backjumpLevel);
+				addLearnedClause(conflictData.lbd);
+				formula.decayClauseActivity();
+			} else if (am.decisionLevel() >= assumptions.size() && am.allAssigned()) {
+				if (blocker != null) {
+					int block = blockModel();
+					if (block != BLOCK_STOP) {
+						blocked = block == BLOCK_CONFLICT;
+						continue;
+					}
+				}
+				// Return SAT if all variables assigned
+				model = buildModel();
+				return true;
+			} else if (stats.conflicts >= nextReduce) {
+				reduceLearned();
+				reduceInterval += REDUCE_INC;
+				nextReduce = stats.conflicts + reduceInterval;
+			} else if (options.vivifyInterval > 0 && stats.conflicts >= nextVivify) {
+				// On its own schedule, whatever the restart policy
+				am.backtrack(0);
+				nextVivify = stats.conflicts + options.vivifyInterval;
+				if (!vivify()) {
+					refuted();
+					return false;
+				}
+			} else if (restarts.shouldRestart()) {
+				stats.restarts++;
+				am.backtrack(options.reuseTrail ? reusableTrailLevel() : 0);
+				restarts.onRestart();
+				if (exchange != null && !importShared()) {
+					refuted();
+					return false;
+				}
+			} else if (exchange != null && stats.conflicts >= nextImport) {
+				// Without restarts this is the only import
+				if (!importShared()) {
+					refuted();
+					return false;
+				}
+			} else {
+				// Assumptions are decided first, then the most active variable
+				int next = placeAssumptions();
+				if (next == FAILED_ASSUMPTION) {
+					return false;
+				} else if (next == NO_ASSUMPTION) {
+					if (am.allAssigned()) {
+						continue;
+					}
+					int nextVar = pickNextVar();
+					next = Literal.code(nextVar, !decideValue(nextVar));
+				}
+				stats.decisions++;
+				am.newDecisionLevel();
+				am.assign(next, ClauseArena.NONE);
+			}
+		}
+	}
+
+	// Add the blocking clause of the current model. It is false, so the search
+	// goes on from a conflict on it at the highest level of its literals, which
+	// it watches. A unit blocking clause is put on the trail at level 0 instead,
+	// since a unit clause is never watched
+	private int blockModel() {
+		IntVec clause = blocker.get();
+		if (clause == null) {
+			return BLOCK_STOP;
+		}
+		stats.models++;
+		int cref = formula.addClause(clause);
+		// Every clause before it is attached already, apart from learned units
+		// that hold at level 0 and would be skipped anyway
+		attached = formula.clauses.size();
+		int size = arena.size(cref);
+		for (int slot = 0; slot < Math.min(2, size); slot++) {
+			int highest = slot;
+			for (int k = slot + 1; k < size; k++) {
+				if (am.getLevel(Literal.var(arena.lit(cref, k))) > am.getLevel(Literal.var(arena.lit(cref, highest)))) {
+					highest = k;
+				}
+			}
+			arena.swap(cref, slot, highest);
+		}
+
+		if (size == 1) {
+			am.backtrack(0);
+			if (am.litValue(arena.lit(cref, 0)) == AssignmentManager.UNASSIGNED) {
+				am.assign(arena.lit(cref, 0), cref);
+				return BLOCK_UNIT;
+			}
+		} else if (size == 2) {
+			formula.addBinary(arena.lit(cref, 0), arena.lit(cref, 1));
+		} else if (size > 2) {
+			formula.watchClause(cref);
+		}
+		am.backtrack(size == 0 ? 0 : am.getLevel(Literal.var(arena.lit(cref, 0))));
+		conflictRef = cref;
+		return BLOCK_CONFLICT;
+	}
+
+	// Open a level for each assumption that already holds. Returns the next
+	// assumption to decide, NO_ASSUMPTION once all of them hold, or
+	// FAILED_ASSUMPTION after recording why one of them is false
+	private int placeAssumptions() {
+		while (am.decisionLevel() < assumptions.size()) {
+			int lit = assumptions.get(am.decisionLevel());
+			byte value = am.litValue(lit);
+			if (value == AssignmentManager.UNASSIGNED) {
+				return lit;
+			} else if (value == AssignmentManager.FALSE) {
+				analyzeFinal(lit);
+				return FAILED_ASSUMPTION;
+			}
+			am.newDecisionLevel();
+		}
+		return NO_ASSUMPTION;
+	}
+
+	// The assumptions responsible for the assumption lit being false: lit itself
+	// and every decision its negation was derived from. While assumptions are being
+	// placed every decision on the trail is an assumption.
+	private void analyzeFinal(int lit) {
+		IntVec failed = new IntVec();
+		failed.push(lit);
+		seen[Literal.var(lit)] = true;
+		int start = am.decisionLevel() == 0 ? am.trailSize : am.levelStart(1);
+		for (int i = am.trailSize - 1; i >= start; i--) {
+			int var = Literal.var(am.trail[i]);
+			if (!seen[var]) {
+				continue;
+			}
+			seen[var] = false;
+			if (am.isDecision(var)) {
+				failed.push(am.trail[i]);
+				continue;
+			}
+			int reason = am.getReason(var);
+			if (reason == ClauseArena.NONE) {
+				markFinal(am.getBinaryReason(var));
+			} else {
+				for (int k = 0; k < arena.size(reason); k++) {
+					if (Literal.var(arena.lit(reason, k)) != var) {
+						markFinal(arena.lit(reason, k));
+					}
+				}
+			}
+		}
+		seen[Literal.var(lit)] = false;
+
+		failedAssumptions = new long[failed.size()];
+		for (int k = 0; k < failed.size(); k++) {
+			failedAssumptions[k] = toId(failed.get(k));
+		}
+	}
+
+	private void markFinal(int lit) {
+		if (am.getLevel(Literal.var(lit)) > 0) {
+			seen[Literal.var(lit)] = true;
+		}
+	}
+
+	// The full assignment as signed VarExpr ids, in dense variable order.
+	// Eliminated variables get values that satisfy their removed clauses
+	private long[] buildModel() {
+		boolean[] values = new boolean[formula.numVars()];
+		for (int var = 0; var < values.length; var++) {
+			values[var] = am.litValue(Literal.code(var, false)) == AssignmentManager.TRUE;
+		}
+		Preprocessor.extendModel(elimStack, values);
+		long[] model = new long[values.length];
+		for (int var = 0; var < values.length; var++) {
+			long id = formula.varIds.get(var);
+			model[var] = values[var] ? id : -id;
+		}
+		return model;
+	}
+
+	// Replace the clauses added so far by their preprocessed version, if
+	// options.preprocess is set and this is the first search. Runs before
+	// anything is attached. Returns false if preprocessing shows UNSAT
+	private boolean preprocessOnce() {
+		if (!options.preprocess || preprocessed) {
+			return true;
+		}
+		preprocessed = true;
+		Preprocessor preprocessor = new Preprocessor(formula.numVars(), frozen, proof);
+		boolean sat = true;
+		for (int i = 0; i < formula.clauses.size(); i++) {
+			int cref = formula.clauses.get(i);
+			int[] lits = new int[arena.size(cref)];
+			for (int k = 0; k < lits.length; k++) {
+				lits[k] = arena.lit(cref, k);
+			}
+			sat = preprocessor.addClause(lits) && sat;
+			arena.delete(cref);
+		}
+		formula.clauses.clear();
+		sat = sat && preprocessor.run();
+		if (sat) {
+			for (int[] clause : preprocessor.result()) {
+				scratch.clear();
+				for (int lit : clause) {
+					scratch.push(lit);
+				}
+				formula.addClause(scratch);
+			}
+		}
+		formula.collectGarbage(am);
+
+		for (int var = 0; var < formula.numVars(); var++) {
+			if (preprocessor.isEliminated(var)) {
+				eliminated[var] = true;
+				am.deactivate(var);
+			}
+		}
+		elimStack = preprocessor.elimStack();
+		stats.eliminatedVars += preprocessor.eliminatedVars;
+		stats.subsumedClauses += preprocessor.subsumed;
+		stats.strengthenedClauses += preprocessor.strengthened;
+		stats.substitutedVars += preprocessor.substitutedVars;
+		stats.failedLiterals += preprocessor.failedLiterals;
+		stats.hyperBinaries += preprocessor.hyperBinaries;
+		return sat;
+	}
+
+	// Add the clauses other workers published since the last import, which runs at
+	// a restart or every IMPORT_INTERVAL conflicts. They are added at level 0 like
+	// attachClauses does, only once there is something to import is the current
+	// trail given up. Returns false if one of them is falsified
+	private boolean importShared() {
+		nextImport = stats.conflicts + IMPORT_INTERVAL;
+		ClauseExchange.Shared shared = exchange.poll(exchangeCursor);
+		for (; shared != null; shared = exchange.poll(exchangeCursor)) {
+			if (shared.source == workerId) {
+				continue;
+			}
+			am.backtrack(0);
+			stats.importedClauses++;
+			scratch.clear();
+			int free = 0;				// Literals not false, moved to the front
+			boolean satisfied = false;
+			for (int k = 0; k < shared.lits.length && !satisfied; k++) {
+				scratch.push(shared.lits[k]);
+				byte value = am.litValue(shared.lits[k]);
+				if (value == AssignmentManager.TRUE) {
+					satisfied = true;
+				} else if (value == AssignmentManager.UNASSIGNED) {
+					scratch.swap(free++, k);
+				}
+			}
+			if (satisfied) {
+				continue;
+			} else if (free == 0) {
+				return false;
+			} else if (free == 1) {
+				am.assign(scratch.get(0), formula.addClause(scratch));
+			} else if (scratch.size() == 2) {
+				formula.addBinary(scratch.get(0), scratch.get(1));
+			} else {
+				formula.watchClause(formula.addLearned(scratch, shared.lbd, stats.conflicts));
+			}
+		}
+		return true;
+	}
+
+	// ---------------- CDCL Related Functions Below  ---------------- //
+
+	// Watch the clauses added since the last call and put unit clauses on the trail.
+	// Binary clauses go into the implication lists instead. Runs at level 0, where
+	// clauses already satisfied are skipped and false literals are moved out of the
+	// watched slots. Returns false if the formula is conflicting at level 0
+	private boolean attachClauses() {
+		for (; attached < formula.clauses.size(); attached++) {
+			int cref = formula.clauses.get(attached);
+			int size = arena.size(cref);
+			int free = 0;				// Literals not false, moved to the front
+			boolean satisfied = false;
+			for (int k = 0; k < size && !satisfied; k++) {
+				if (eliminated[Literal.var(arena.lit(cref, k))]) {
+					throw new IllegalArgumentException("Clause uses variable x" + formula.varIds.get(Literal.var(arena.lit(cref, k)))
+							+ ", which was eliminated by preprocessing, freeze it before the first solve");
+				}
+				byte value = am.litValue(arena.lit(cref, k));
+				if (value == AssignmentManager.TRUE) {
+					satisfied = true;
+				} else if (value == AssignmentManager.UNASSIGNED) {
+					arena.swap(cref, free++, k);
+				}
+			}
+			if (satisfied) {
+				continue;
+			} else if (free == 0) {
+				return false;
+			} else if (free == 1) {
+				am.assign(arena.lit(cref, 0), cref);
+			} else if (size == 2) {
+				formula.addBinary(arena.lit(cref, 0), arena.lit(cref, 1));
+			} else {
+				formula.watchClause(cref);
+			}
+		}
+		return true;
+	}
+
+	// Performs unit propagation, returns true if conflict.
+	// Only the clauses watching a literal that just became false are visited.
+	// Binary implications are followed for the whole trail before any longer
+	// clause is looked at, since they need no clause access at all.
+	private boolean BCP() {
+		while (true) {
+			while (am.binaryQhead < am.trailSize) {
+				int falseLit = Literal.negate(am.trail[am.binaryQhead++]);
+				IntVec implied = formula.binaries[falseLit];
+				for (int k = 0; k < implied.size(); k++) {
+					int other = implied.get(k);
+					byte value = am.litValue(other);
+					if (value == AssignmentManager.UNASSIGNED) {
+						am.assignBinary(other, falseLit);
+					} else if (value == AssignmentManager.FALSE) {
+						conflictRef = BINARY_CONFLICT;
+						conflictBinary[0] = other;
+						conflictBinary[1] = falseLit;
+						return true;
+					}
+				}
+			}
+			if (am.qhead == am.trailSize) {
+				return false;
+			}
+
+			// The literal that the assignment made false
+			int falseLit = Literal.negate(am.trail[am.qhead++]);
+			IntVec watchers = formula.watches[falseLit];
+			// Nothing is allocated during propagation, so the arena cannot move under us
+			int[] data = arena.data;
+
+			// Watch lists hold (cref, blocker) pairs
+			int i = 0, j = 0;
+			while (i < watchers.size()) {
+				int cref = watchers.get(i);
+				int blocker = watchers.get(i + 1);
+				i += 2;
+				// Blocker is true => clause is satisfied, no need to look at it
+				if (am.litValue(blocker) == AssignmentManager.TRUE) {
+					watchers.set(j++, cref);
+					watchers.set(j++, blocker);
+					continue;
+				}
+
+				// Keep the false literal in the second watch slot
+				int lits = cref + ClauseArena.HEADER;
+				if (data[lits] == falseLit) {
+					data[lits] = data[lits + 1];
+					data[lits + 1] = falseLit;
+				}
+				int first = data[lits];
+				byte firstValue = am.litValue(first);
+				if (firstValue == AssignmentManager.TRUE) {
+					// Other watch is true => clause is satisfied
+					watchers.set(j++, cref);
+					watchers.set(j++, first);
+					continue;
+				}
+
+				// Look for a non-false literal to watch instead
+				boolean moved = false;
+				int end = lits + data[cref];
+				for (int k = lits + 2; k < end; k++) {
+					int lit = data[k];
+					if (am.litValue(lit) != AssignmentManager.FALSE) {
+						data[lits + 1] = lit;
+						data[k] = falseLit;
+						formula.watches[lit].push(cref);
+						formula.watches[lit].push(first);
+						moved = true;
+						break;
+					}
+				}
+				if (moved) {
+					continue;
+				}
+
+				watchers.set(j++, cref);
+				watchers.set(j++, first);
+				if (firstValue == AssignmentManager.UNASSIGNED) {
+					// Every other literal is false => unit clause
+					am.assign(first, cref);
+				} else {
+					// All literals false => conflict.
+					while (i < watchers.size()) {
+						watchers.set(j++, watchers.get(i++));
+					}
+					watchers.shrink(j);
+					conflictRef = cref;
+					return true;
+				}
+			}
+			watchers.shrink(j);
+		}
+	}
+
+	// Store the clause left in learnedBuffer, watch it and assert its UIP literal.
+	// Expects to be called right after backjumping, when the clause is unit.
+	private void addLearnedClause(int lbd) {
+		if (proof != null) {
+			proof.add(learnedBuffer);
+		}
+		// analyzeConflict puts the UIP first and a literal of the backjump level second
+		int uip = learnedBuffer.get(0);
+		int cref;
+		if (exchange != null && lbd <= SHARE_MAX_LBD && learnedBuffer.size() <= SHARE_MAX_SIZE) {
+			exchange.publish(workerId, lbd, learnedBuffer);
+			stats.exportedClauses++;
+		}
+		if (learnedBuffer.size() == 2) {
+			// Binary clauses have LBD 2 at most, they are kept as implications forever
+			formula.addBinary(uip, learnedBuffer.get(1));
+			am.assignBinary(uip, learnedBuffer.get(1));
+			return;
+		} else if (learnedBuffer.size() > 2) {
+			cref = formula.addLearned(learnedBuffer, lbd, stats.conflicts);
+			formula.watchClause(cref);
+		} else {
+			// Unit clauses hold at level 0 forever, they never need deleting
+			cref = formula.addClause(learnedBuffer);
+		}
+		am.assign(uip, cref);
+	}
+
+	// First-UIP conflict analysis. Walks the trail backwards from the conflict,
+	// resolving on the current-level literals until only one (the UIP) is left.
+	// The learned clause is left in learnedBuffer.
+	private ConflictData analyzeConflict() {
+		int decisionLevel = am.decisionLevel();
+		learnedBuffer.clear();
+		learnedBuffer.push(-1);		// Slot 0 is kept for the UIP
+
+		// Current-level literals still to resolve on
+		int pathCount;
+		if (conflictRef == BINARY_CONFLICT) {
+			pathCount = analyzeLiteral(conflictBinary[0], decisionLevel)
+					+ analyzeLiteral(conflictBinary[1], decisionLevel);
+		} else {
+			pathCount = analyzeClause(conflictRef, -1, decisionLevel);
+		}
+		conflictRef = ClauseArena.NONE;
+
+		int index = am.trailSize - 1;
+		int pivot;
+		while (true) {
+			// Next literal to resolve on is the last one assigned that we have seen
+			while (!seen[Literal.var(am.trail[index])]) {
+				index--;
+			}
+			pivot = am.trail[index--];
+			int pivotVar = Literal.var(pivot);
+			seen[pivotVar] = false;
+			if (--pathCount == 0) {
+				break;
+			}
+
+			int reason = am.getReason(pivotVar);
+			if (reason == ClauseArena.NONE) {
+				// Implied by a binary clause, the other literal is the only antecedent
+				pathCount += analyzeLiteral(am.getBinaryReason(pivotVar), decisionLevel);
+			} else {
+				pathCount += analyzeClause(reason, pivotVar, decisionLevel);
+			}
+		}
+		learnedBuffer.set(0, Literal.negate(pivot));
+
+		stats.learnedLiterals += learnedBuffer.size();
+		minimizeLearned();
+		stats.minimizedLiterals += learnedBuffer.size();
+
+		// Backjump to the highest level among the other literals, kept in slot 1 for the watches
+		int backjumpLevel = 0;
+		for (int k = 1; k < learnedBuffer.size(); k++) {
+			int level = am.getLevel(Literal.var(learnedBuffer.get(k)));
+			if (level > backjumpLevel) {
+				backjumpLevel = level;
+				learnedBuffer.swap(1, k);
+			}
+		}
+		return new ConflictData(backjumpLevel, am.computeLBD(learnedBuffer));
+	}
+
+	// Visit the literals of an antecedent clause, except the one of the variable it implied.
+	// Returns the number of new current-level literals to resolve on
+	private int analyzeClause(int cref, int impliedVar, int decisionLevel) {
+		if (arena.isLearned(cref)) {
+			touchLearned(cref);
+		}
+		int count = 0;
+		for (int k = 0; k < arena.size(cref); k++) {
+			int lit = arena.lit(cref, k);
+			if (Literal.var(lit) != impliedVar) {
+				count += analyzeLiteral(lit, decisionLevel);
+			}
+		}
+		return count;
+	}
+
+	// Visit a false antecedent literal during conflict analysis. Returns 1 if it is
+	// a new current-level literal to resolve on, lower-level ones go to the learned clause
+	private int analyzeLiteral(int lit, int decisionLevel) {
+		int var = Literal.var(lit);
+		if (seen[var] || am.getLevel(var) == 0) {
+			return 0;
+		}
+		seen[var] = true;
+		am.order.bumpActivity(var);
+		if (am.getLevel(var) == decisionLevel) {
+			return 1;
+		}
+		learnedBuffer.push(lit);
+		return 0;
+	}
+
+	// Learned clause taking part in conflict analysis: bump it and recompute its
+	// LBD, a clause whose literals now span fewer levels moves to a better tier
+	private void touchLearned(int cref) {
+		formula.bumpClauseActivity(cref);
+		arena.setLastUsed(cref, stats.conflicts);
+		if (arena.lbd(cref) > ClauseArena.CORE_LBD) {
+			int lbd = am.computeLBD(arena, cref);
+			if (lbd < arena.lbd(cref)) {
+				arena.setLbd(cref, lbd);
+				arena.setTier(cref, Math.min(arena.tier(cref), ClauseArena.tierOf(lbd)));
+			}
+		}
+	}
+
+	// Shrink the learned clause database. Core clauses are kept, tier-2 clauses
+	// that went unused for too long are demoted, and the least useful half of the
+	// local clauses not used since the last reduction is deleted. Clauses that are
+	// currently the reason for an assignment are never deleted. The arena is
+	// compacted once enough of it is taken by deleted clauses.
+	private void reduceLearned() {
+		stats.reductions++;
+		candidates.clear();
+		long lastReduce = stats.conflicts - reduceInterval;
+		for (int i = 0; i < formula.learnts.size(); i++) {
+			int cref = formula.learnts.get(i);
+			if (arena.tier(cref) == ClauseArena.TIER2 && stats.conflicts - arena.lastUsed(cref) > TIER2_UNUSED) {
+				arena.setTier(cref, ClauseArena.LOCAL);
+			}
+			if (arena.tier(cref) == ClauseArena.LOCAL && arena.lastUsed(cref) <= lastReduce && !isLocked(cref)) {
+				candidates.push(cref);
+			}
+		}
+
+		// Worst first: highest LBD, then lowest activity
+		candidates.sort((a, b) -> arena.lbd(a) != arena.lbd(b)
+				? Integer.compare(arena.lbd(b), arena.lbd(a))
+				: Float.compare(arena.activity(a), arena.activity(b)));
+		for (int k = 0; k < candidates.size() / 2; k++) {
+			if (proof != null) {
+				proof.delete(arena, candidates.get(k));
+			}
+			arena.delete(candidates.get(k));
+			stats.deletedClauses++;
+		}
+		formula.purgeDeleted();
+		if (arena.needsCompaction()) {
+			formula.collectGarbage(am);
+			stats.compactions++;
+		}
+	}
+
+	// Vivification round, run at level 0. Each selected clause has its literals
+	// falsified one by one with propagation in between: a literal that comes out
+	// false is dropped, and once one comes out true, or propagation conflicts,
+	// the literals decided so far already form an implied clause. Tier-1 and
+	// tier-2 learned clauses go first, then the original clauses. Every clause is
+	// tried once, as far as the time budget of the round allows. Returns false if
+	// the formula turns out UNSAT
+	private boolean vivify() {
+		long deadline = System.nanoTime() + options.vivifyMillis * 1_000_000L;
+		if (!attachClauses()) {
+			return false;
+		}
+		candidates.clear();
+		for (int i = 0; i < formula.learnts.size(); i++) {
+			int cref = formula.learnts.get(i);
+			if (arena.tier(cref) != ClauseArena.LOCAL && !arena.isVivified(cref)) {
+				candidates.push(cref);
+			}
+		}
+		candidates.sort((a, b) -> Integer.compare(arena.lbd(a), arena.lbd(b)));
+		for (int i = 0; i < formula.clauses.size(); i++) {
+			int cref = formula.clauses.get(i);
+			if (arena.size(cref) > 2 && !arena.isVivified(cref)) {
+				candidates.push(cref);
+			}
+		}
+
+		// Replaced clauses are deleted at the end, so none of them can be left
+		// as the reason of a level-0 assignment
+		replaced.clear();
+		boolean sat = true;
+		for (int k = 0; k < candidates.size() && sat && System.nanoTime() < deadline; k++) {
+			sat = vivifyClause(candidates.get(k));
+		}
+		for (int k = 0; k < replaced.size(); k++) {
+			if (!isLocked(replaced.get(k))) {
+				if (proof != null) {
+					proof.delete(arena, replaced.get(k));
+				}
+				arena.delete(replaced.get(k));
+			}
+		}
+		formula.purgeDeleted();
+		formula.purgeDeletedClauses();
+		attached = formula.clauses.size();
+		return sat;
+	}
+
+	// Try to shorten one clause, replacing it if that works. Returns false on a
+	// conflict at level 0
+	private boolean vivifyClause(int cref) {
+		arena.setVivified(cref);
+		int size = arena.size(cref);
+		// Copied, since propagation reorders the watched literals of the clause itself
+		int[] lits = new int[size];
+		for (int k = 0; k < size; k++) {
+			lits[k] = arena.lit(cref, k);
+			if (am.litValue(lits[k]) == AssignmentManager.TRUE && am.getLevel(Literal.var(lits[k])) == 0) {
+				return true;
+			}
+		}
+
+		scratch.clear();
+		am.newDecisionLevel();
+		for (int lit : lits) {
+			byte value = am.litValue(lit);
+			if (value == AssignmentManager.FALSE) {
+				continue;
+			}
+			scratch.push(lit);
+			if (value == AssignmentManager.TRUE) {
+				break;
+			}
+			am.assign(Literal.negate(lit), ClauseArena.NONE);
+			if (BCP()) {
+				conflictRef = ClauseArena.NONE;
+				break;
+			}
+		}
+		am.backtrack(0);
+		if (scratch.size() == size) {
+			return true;
+		}
+
+		if (proof != null) {
+			proof.add(scratch);
+		}
+		stats.vivifiedClauses++;
+		stats.vivifiedLiterals += size - scratch.size();
+		replaced.push(cref);
+		boolean learned = arena.isLearned(cref);
+		if (scratch.size() == 1) {
+			am.assign(scratch.get(0), formula.addClause(scratch));
+			return !BCP();
+		} else if (scratch.size() == 2) {
+			if (!learned) {
+				formula.addClause(scratch);
+			}
+			formula.addBinary(scratch.get(0), scratch.get(1));
+		} else {
+			int shorter;
+			if (learned) {
+				int lbd = Math.min(arena.lbd(cref), scratch.size() - 1);
+				shorter = formula.addLearned(scratch, lbd, stats.conflicts);
+				arena.setTier(shorter, Math.min(arena.tier(cref), ClauseArena.tierOf(lbd)));
+			} else {
+				shorter = formula.addClause(scratch);
+			}
+			arena.setVivified(shorter);
+			formula.watchClause(shorter);
+		}
+		return true;
+	}
+
+	// The clauses are UNSAT without any assumption, which ends the proof
+	private void refuted() {
+		ok = false;
+		if (proof != null) {
+			proof.add();
+		}
+	}
+
+	// A clause is locked while it is the reason for its first literal
+	private boolean isLocked(int cref) {
+		int first = arena.lit(cref, 0);
+		return am.litValue(first) == AssignmentManager.TRUE && am.getReason(Literal.var(first)) == cref;
+	}
+
+	// Recursive learned clause minimization. A literal is dropped if its reason
+	// clause only contains literals that are already in the learned clause or
+	// are themselves redundant. Clears the seen marks left by the analysis.
+	private void minimizeLearned() {
+		// Bit set of the decision levels in the clause, used to give up early on
+		// literals implied from a level that does not appear in the clause
+		int levels = 0;
+		analyzeToClear.clear();
+		for (int k = 1; k < learnedBuffer.size(); k++) {
+			int var = Literal.var(learnedBuffer.get(k));
+			levels |= abstractLevel(var);
+			analyzeToClear.push(var);
+		}
+
+		int kept = 1;
+		for (int k = 1; k < learnedBuffer.size(); k++) {
+			int lit = learnedBuffer.get(k);
+			if (am.isDecision(Literal.var(lit)) || !litRedundant(lit, levels)) {
+				learnedBuffer.set(kept++, lit);
+			}
+		}
+
+		for (int k = 0; k < analyzeToClear.size(); k++) {
+			seen[analyzeToClear.get(k)] = false;
+		}
+		learnedBuffer.shrink(kept);
+	}
+
+	// Check if the false literal is implied by the other literals of the learned
+	// clause, following reasons with an explicit stack instead of recursion
+	private boolean litRedundant(int lit, int levels) {
+		analyzeStack.clear();
+		analyzeStack.push(lit);
+		int top = analyzeToClear.size();
+		while (analyzeStack.size() > 0) {
+			int impliedVar = Literal.var(analyzeStack.pop());
+			int reason = am.getReason(impliedVar);
+			if (reason == ClauseArena.NONE) {
+				if (!redundantAntecedent(am.getBinaryReason(impliedVar), levels, top)) {
+					return false;
+				}
+				continue;
+			}
+			for (int k = 0; k < arena.size(reason); k++) {
+				int reasonLit = arena.lit(reason, k);
+				if (Literal.var(reasonLit) != impliedVar && !redundantAntecedent(reasonLit, levels, top)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	// One antecedent of the redundancy check. Queues it if it still has to be
+	// checked, or undoes the marks of the current check and returns false if it
+	// is a decision or comes from a level outside the clause
+	private boolean redundantAntecedent(int lit, int levels, int top) {
+		int var = Literal.var(lit);
+		if (seen[var] || am.getLevel(var) == 0) {
+			return true;
+		}
+		if (!am.isDecision(var) && (abstractLevel(var) & levels) != 0) {
+			seen[var] = true;
+			analyzeStack.push(lit);
+			analyzeToClear.push(var);
+			return true;
+		}
+		for (int k = top; k < analyzeToClear.size(); k++) {
+			seen[analyzeToClear.get(k)] = false;
+		}
+		analyzeToClear.shrink(top);
+		return false;
+	}
+
+	private int abstractLevel(int var) {
+		return 1 << (am.getLevel(var) & 31);
+	}
+
+	// Level to restart to. The first decisions are kept for as long as they are
+	// more active than the variable the restarted search would pick next, since
+	// it would just make them again (trail reuse).
+	// Assumption levels are always kept, they would be placed again right away.
+	private int reusableTrailLevel() {
+		int next = am.order.peekUnassigned(am);
+		if (next == -1 || am.decisionLevel() <= assumptions.size()) {
+			return Math.min(am.decisionLevel(), assumptions.size());
+		}
+		for (int level = assumptions.size() + 1; level <= am.decisionLevel(); level++) {
+			int decision = Literal.var(am.trail[am.levelStart(level)]);
+			if (am.order.activity(decision) < am.order.activity(next)) {
+				return level - 1;
+			}
+		}
+		return am.decisionLevel();
+	}
+
+	// Pick the unassigned variable with the highest activity
+	private int pickNextVar() {
+		while (!am.order.isEmpty()) {
+			int var = am.order.removeMax();
+			if (!am.isAssigned(var)) {
+				return var;
+			}
+		}
+		return -1;
+	}
+
+	// Pick assignment. Reuses the value the variable had before it was
+	// backtracked over (phase saving), or a random one once in a while
+	private boolean decideValue(int var) {
+		if (options.randomPhaseFreq > 0 && random.nextDouble() < options.randomPhaseFreq) {
+			return random.nextBoolean();
+		}
+		return am.getSavedPhase(var);
+	}
+}
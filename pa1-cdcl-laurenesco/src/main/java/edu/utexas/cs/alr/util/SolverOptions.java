@@ -0,0 +1,37 @@
+//
+// Program Name:	SolverOptions.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: Tunable settings of the SAT solver
+//
+
+package edu.utexas.cs.alr.util;
+
+public class SolverOptions {
+
+	public enum Restarts { NONE, LUBY, GLUCOSE }
+
+	public boolean defaultPhase = false;		// Value tried first for a variable that was never assigned
+	public double randomPhaseFreq = 0.0;		// Fraction of decisions that pick a random value
+	public long seed = 91648253;				// Seed for the random choices
+	public Restarts restarts = Restarts.GLUCOSE;	// When to restart the search
+	public int lubyUnit = 100;					// Conflicts per unit of the Luby sequence
+	public boolean reuseTrail = true;			// Keep the decisions a restart would make again
+	public int vivifyInterval = 10000;			// Conflicts between vivification rounds, 0 disables them
+	public int vivifyMillis = 50;				// Time one vivification round may take
+	public boolean preprocess = false;			// Simplify the clauses before the first search (see Solver.freeze)
+
+	public SolverOptions copy() {
+		SolverOptions copy = new SolverOptions();
+		copy.defaultPhase = defaultPhase;
+		copy.randomPhaseFreq = randomPhaseFreq;
+		copy.seed = seed;
+		copy.restarts = restarts;
+		copy.lubyUnit = lubyUnit;
+		copy.reuseTrail = reuseTrail;
+		copy.vivifyInterval = vivifyInterval;
+		copy.vivifyMillis = vivifyMillis;
+		copy.preprocess = preprocess;
+		return copy;
+	}
+}
@@ -0,0 +1,68 @@
+//
+// Program Name:	SolverStats.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: Counters collected while solving, for tuning
+//
+
+package edu.utexas.cs.alr.util;
+
+public class SolverStats {
+
+	public long conflicts = 0;
+	public long decisions = 0;
+	public long restarts = 0;
+	public long reductions = 0;				// Learned clause database reductions
+	public long deletedClauses = 0;			// Learned clauses deleted by reductions
+	public long compactions = 0;			// Clause arena garbage collections
+	public long learnedLiterals = 0;		// Learned clause literals before minimization
+	public long minimizedLiterals = 0;		// Learned clause literals after minimization
+	public long eliminatedVars = 0;			// Variables resolved away by preprocessing
+	public long subsumedClauses = 0;		// Clauses removed by preprocessing subsumption
+	public long strengthenedClauses = 0;	// Literals removed by preprocessing
+	public long substitutedVars = 0;		// Variables replaced by an equivalent literal
+	public long failedLiterals = 0;			// Probes that led to a conflict
+	public long hyperBinaries = 0;			// Binary clauses added by probing
+	public long vivifiedClauses = 0;		// Clauses shortened by vivification
+	public long vivifiedLiterals = 0;		// Literals it removed
+	public long exportedClauses = 0;		// Learned clauses given to other portfolio workers
+	public long importedClauses = 0;		// Learned clauses taken from other portfolio workers
+	public long models = 0;					// Models blocked by enumeration
+
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		double deleted = learnedLiterals == 0 ? 0 : 100.0 * (learnedLiterals - minimizedLiterals) / learnedLiterals;
+		b.append("conflicts: ").append(conflicts).append("\n");
+		b.append("decisions: ").append(decisions).append("\n");
+		b.append("restarts: ").append(restarts).append("\n");
+		b.append("reductions: ").append(reductions)
+				.append(" (").append(deletedClauses).append(" clauses deleted, ")
+				.append(compactions).append(" compactions)\n");
+		b.append("learned literals: ").append(learnedLiterals)
+				.append(" -> ").append(minimizedLiterals)
+				.append(String.format(" (%.2f%% deleted)", deleted));
+		if (eliminatedVars + subsumedClauses + strengthenedClauses > 0) {
+			b.append("\npreprocessing: ").append(eliminatedVars).append(" variables eliminated, ")
+					.append(subsumedClauses).append(" clauses subsumed, ")
+					.append(strengthenedClauses).append(" literals removed");
+		}
+		if (substitutedVars + failedLiterals + hyperBinaries > 0) {
+			b.append("\nprobing: ").append(substitutedVars).append(" equivalent variables substituted, ")
+					.append(failedLiterals).append(" failed literals, ")
+					.append(hyperBinaries).append(" hyper-binary resolvents");
+		}
+		if (vivifiedClauses > 0) {
+			b.append("\nvivification: ").append(vivifiedClauses).append(" clauses shortened, ")
+					.append(vivifiedLiterals).append(" literals removed");
+		}
+		if (models > 0) {
+			b.append("\nenumeration: ").append(models).append(" models blocked");
+		}
+		if (exportedClauses + importedClauses > 0) {
+			b.append("\nshared clauses: ").append(exportedClauses).append(" exported, ")
+					.append(importedClauses).append(" imported");
+		}
+		return b.toString();
+	}
+}
@@ -0,0 +1,159 @@
+//
+// Program Name:	VarOrder.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: Decision heuristic of the SAT solver
+//
+
+package edu.utexas.cs.alr.util;
+
+import java.util.*;
+
+/////////////////////////
+// VARIABLE ORDER CLASS
+/////////////////////////
+
+// Variable activities for the decision heuristic (EVSIDS). Variables taking part
+// in conflict analysis are bumped, and the bump grows after every conflict so
+// recent conflicts weigh more. Candidates are kept in an indexed binary max-heap.
+class VarOrder {
+	private static final double DECAY = 0.95;
+	private static final double RESCALE_LIMIT = 1e100;
+
+	private double[] activity;
+	private double activityInc = 1.0;
+	private int[] heap;				// Heap of variables, ordered by activity
+	private int[] indices;			// Position of each variable in the heap (-1 if absent)
+	private int size = 0;
+
+	public VarOrder(int numVars) {
+		activity = new double[0];
+		heap = new int[0];
+		indices = new int[0];
+		growTo(numVars);
+	}
+
+	// Add the variables up to numVars as candidates, with no activity yet
+	public void growTo(int numVars) {
+		int old = activity.length;
+		if (numVars <= old) {
+			return;
+		}
+		activity = Arrays.copyOf(activity, numVars);
+		heap = Arrays.copyOf(heap, numVars);
+		indices = Arrays.copyOf(indices, numVars);
+		Arrays.fill(indices, old, numVars, -1);
+		for (int var = old; var < numVars; var++) {
+			insert(var);
+		}
+	}
+
+	public void bumpActivity(int var) {
+		activity[var] += activityInc;
+		if (activity[var] > RESCALE_LIMIT) {
+			// Scale everything down before the doubles overflow
+			for (int v = 0; v < activity.length; v++) {
+				activity[v] *= 1 / RESCALE_LIMIT;
+			}
+			activityInc *= 1 / RESCALE_LIMIT;
+		}
+		if (indices[var] >= 0) {
+			siftUp(indices[var]);
+		}
+	}
+
+	// Decaying every activity is the same as growing the bump
+	public void decayActivity() {
+		activityInc /= DECAY;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public double activity(int var) {
+		return activity[var];
+	}
+
+	// The most active unassigned variable (or -1), dropping assigned ones on the way
+	public int peekUnassigned(AssignmentManager am) {
+		while (size > 0 && am.isAssigned(heap[0])) {
+			removeMax();
+		}
+		return size == 0 ? -1 : heap[0];
+	}
+
+	public void insert(int var) {
+		if (indices[var] >= 0) {
+			return;
+		}
+		heap[size] = var;
+		indices[var] = size;
+		siftUp(size++);
+	}
+
+	// Drop the variable from the heap, if it is there
+	public void remove(int var) {
+		int pos = indices[var];
+		if (pos < 0) {
+			return;
+		}
+		indices[var] = -1;
+		size--;
+		if (pos < size) {
+			int moved = heap[size];
+			heap[pos] = moved;
+			indices[moved] = pos;
+			siftUp(pos);
+			siftDown(indices[moved]);
+		}
+	}
+
+	public int removeMax() {
+		int var = heap[0];
+		indices[var] = -1;
+		size--;
+		if (size > 0) {
+			heap[0] = heap[size];
+			indices[heap[0]] = 0;
+			siftDown(0);
+		}
+		return var;
+	}
+
+	private void siftUp(int pos) {
+		int var = heap[pos];
+		while (pos > 0) {
+			int parent = (pos - 1) >> 1;
+			if (activity[heap[parent]] >= activity[var]) {
+				break;
+			}
+			heap[pos] = heap[parent];
+			indices[heap[pos]] = pos;
+			pos = parent;
+		}
+		heap[pos] = var;
+		indices[var] = pos;
+	}
+
+	private void siftDown(int pos) {
+		int var = heap[pos];
+		while (true) {
+			int child = 2 * pos + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && activity[heap[child + 1]] > activity[heap[child]]) {
+				child++;
+			}
+			if (activity[heap[child]] <= activity[var]) {
+				break;
+			}
+			heap[pos] = heap[child];
+			indices[heap[pos]] = pos;
+			pos = child;
+		}
+		heap[pos] = var;
+		indices[var] = pos;
+	}
+}
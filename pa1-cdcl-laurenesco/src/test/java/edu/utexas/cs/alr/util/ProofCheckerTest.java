@@ -0,0 +1,152 @@
+//
+// Program Name:	ProofCheckerTest.java
+// Date Last Modified:	02/09/2025
+//
+// Program Description: Accepted and rejected DRAT proofs for ProofChecker
+//
+
+package edu.utexas.cs.alr.util;
+
+import edu.utexas.cs.alr.ast.Expr;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static edu.utexas.cs.alr.ast.ExprFactory.*;
+import static org.junit.Assert.*;
+
+///////////////////////////////
+// PROOF CHECKER TEST CLASS
+///////////////////////////////
+
+public class ProofCheckerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	// Every assignment of x1 and x2 falsifies one of the clauses
+	private static final long[][] ALL_SIGNS = { { 1, 2 }, { 1, -2 }, { -1, 2 }, { -1, -2 } };
+
+	// ----------------- Accepted proofs ----------------- //
+
+	@Test
+	public void acceptsHandWrittenProof() throws IOException {
+		ProofChecker checker = new ProofChecker(toExpr(ALL_SIGNS));
+		assertTrue(checker.getFailure(), checker.check(write("1 0\n0\n")));
+		assertEquals(1, checker.getLemmaCount());
+	}
+
+	@Test
+	public void acceptsSolverTextProof() throws IOException {
+		checkSolverProof(false);
+	}
+
+	@Test
+	public void acceptsSolverBinaryProof() throws IOException {
+		checkSolverProof(true);
+	}
+
+	// ----------------- Rejected proofs ----------------- //
+
+	@Test
+	public void rejectsLemmaThatIsNeitherRupNorRat() throws IOException {
+		// SAT with x1 and x2 true, so the unit -1 does not follow. The resolvent
+		// -2 on the pivot is not RUP either, which rules out RAT
+		long[][] clauses = { { 1, 2 }, { -1, 2 }, { 1, -2 } };
+		ProofChecker checker = new ProofChecker(toExpr(clauses));
+		assertFalse(checker.check(write("-1 0\n0\n")));
+		assertTrue(checker.getFailure(), checker.getFailure().startsWith("Lemma is neither RUP nor RAT"));
+	}
+
+	@Test
+	public void rejectsProofWithoutConflict() throws IOException {
+		// The lemma is RUP, but propagation never reaches a conflict
+		ProofChecker checker = new ProofChecker(toExpr(ALL_SIGNS));
+		assertFalse(checker.check(write("1 2 0\n")));
+		assertEquals("The proof does not derive a conflict", checker.getFailure());
+	}
+
+	@Test
+	public void rejectsProofOfWeakerFormula() throws IOException {
+		// The refutation of the pigeonhole formula does not carry over once one
+		// pigeon may share a hole
+		Path proof = folder.newFile("weak.drat").toPath();
+		List<long[]> clauses = pigeonhole(4);
+		assertFalse(solveWithProof(clauses, proof, false));
+
+		clauses.remove(clauses.size() - 1);
+		assertTrue(new Solver().solve(toExpr(clauses.toArray(new long[0][]))));
+		ProofChecker checker = new ProofChecker(toExpr(clauses.toArray(new long[0][])));
+		assertFalse(checker.check(proof));
+		assertNotNull(checker.getFailure());
+	}
+
+	// ----------------- Helpers ----------------- //
+
+	private void checkSolverProof(boolean binary) throws IOException {
+		Path proof = folder.newFile(binary ? "php.drat" : "php.txt").toPath();
+		List<long[]> clauses = pigeonhole(4);
+		assertFalse(solveWithProof(clauses, proof, binary));
+
+		ProofChecker checker = new ProofChecker(toExpr(clauses.toArray(new long[0][])));
+		assertTrue(checker.getFailure(), checker.check(proof));
+		assertTrue(checker.getCoreLemmaCount() <= checker.getLemmaCount());
+	}
+
+	private static boolean solveWithProof(List<long[]> clauses, Path proof, boolean binary) throws IOException {
+		Solver solver = new Solver();
+		try (ProofWriter writer = new ProofWriter(proof, binary)) {
+			solver.setProof(writer);
+			for (long[] clause : clauses) {
+				solver.addClause(clause);
+			}
+			return solver.solve();
+		}
+	}
+
+	// holes + 1 pigeons in holes holes, no two in the same hole. Pigeon i in hole j
+	// is variable i * holes + j + 1; the hole constraints come last
+	private static List<long[]> pigeonhole(int holes) {
+		List<long[]> clauses = new ArrayList<>();
+		for (int i = 0; i <= holes; i++) {
+			long[] somewhere = new long[holes];
+			for (int j = 0; j < holes; j++) {
+				somewhere[j] = i * holes + j + 1;
+			}
+			clauses.add(somewhere);
+		}
+		for (int j = 0; j < holes; j++) {
+			for (int i = 0; i <= holes; i++) {
+				for (int k = i + 1; k <= holes; k++) {
+					clauses.add(new long[] { -(i * holes + j + 1), -(k * holes + j + 1) });
+				}
+			}
+		}
+		return clauses;
+	}
+
+	private Path write(String proof) throws IOException {
+		Path path = folder.newFile().toPath();
+		Files.write(path, proof.getBytes(StandardCharsets.US_ASCII));
+		return path;
+	}
+
+	private static Expr toExpr(long[][] clauses) {
+		Expr cnf = null;
+		for (long[] clause : clauses) {
+			Expr disjunction = null;
+			for (long lit : clause) {
+				Expr e = lit > 0 ? mkVAR(lit) : mkNEG(mkVAR(-lit));
+				disjunction = disjunction == null ? e : mkOR(disjunction, e);
+			}
+			cnf = cnf == null ? disjunction : mkAND(cnf, disjunction);
+		}
+		return cnf;
+	}
+}